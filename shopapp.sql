@@ -18,6 +18,18 @@ DROP TABLE users;
 
 DROP TABLE roles;
 
+DROP SEQUENCE order_details_seq;
+
+DROP SEQUENCE product_images_seq;
+
+DROP SEQUENCE orders_seq;
+
+DROP SEQUENCE products_seq;
+
+DROP SEQUENCE tokens_seq;
+
+DROP SEQUENCE users_seq;
+
 CREATE TABLE roles(
 	id NUMBER GENERATED BY DEFAULT AS IDENTITY,
     name NVARCHAR2(255) NOT NULL,
@@ -28,8 +40,12 @@ CREATE TABLE roles(
 INSERT INTO roles (name) VALUES ('admin');
 INSERT INTO roles (name) VALUES ('user');
 
+-- Pooled by Hibernate (allocationSize = 50); DEFAULT keeps plain INSERTs working
+-- Starts past the seeded ids below plus one allocation block
+CREATE SEQUENCE users_seq START WITH 101 INCREMENT BY 50;
+
 CREATE TABLE users (
-    id NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    id NUMBER DEFAULT users_seq.NEXTVAL,
     phone_number NVARCHAR2(255) NOT NULL ,
     password NVARCHAR2(255) NOT NULL ,
     fullname NVARCHAR2(255) DEFAULT '',
@@ -46,12 +62,15 @@ CREATE TABLE users (
     CONSTRAINT fk_role_id FOREIGN KEY (role_id) REFERENCES roles(id)
 );
 
-INSERT INTO users(phone_number,password,fullname,address,role_id) VALUES ('0987654321','$2a$10$OK0gQxDSMaBXN6f8rdIqYu8U/ebzue7Px8tRhRQ0xYS6vpA0bNWH6','Nguyen Nhat Minh','HN',2);
-INSERT INTO users(phone_number,password,fullname,address,role_id) VALUES ('123456789','$2a$10$OK0gQxDSMaBXN6f8rdIqYu8U/ebzue7Px8tRhRQ0xYS6vpA0bNWH6','Nguyen Nhat Ha','HN',2);
-INSERT INTO users(phone_number,password,fullname,address,role_id) VALUES ('000000000','$2a$10$OK0gQxDSMaBXN6f8rdIqYu8U/ebzue7Px8tRhRQ0xYS6vpA0bNWH6','admin','HN',1);
+INSERT INTO users(id,phone_number,password,fullname,address,role_id) VALUES (1,'0987654321','$2a$10$OK0gQxDSMaBXN6f8rdIqYu8U/ebzue7Px8tRhRQ0xYS6vpA0bNWH6','Nguyen Nhat Minh','HN',2);
+INSERT INTO users(id,phone_number,password,fullname,address,role_id) VALUES (2,'123456789','$2a$10$OK0gQxDSMaBXN6f8rdIqYu8U/ebzue7Px8tRhRQ0xYS6vpA0bNWH6','Nguyen Nhat Ha','HN',2);
+INSERT INTO users(id,phone_number,password,fullname,address,role_id) VALUES (3,'000000000','$2a$10$OK0gQxDSMaBXN6f8rdIqYu8U/ebzue7Px8tRhRQ0xYS6vpA0bNWH6','admin','HN',1);
+
+-- Pooled by Hibernate (allocationSize = 50); DEFAULT keeps plain INSERTs working
+CREATE SEQUENCE tokens_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE tokens(
-	id NUMBER GENERATED BY DEFAULT AS IDENTITY,
+	id NUMBER DEFAULT tokens_seq.NEXTVAL,
     token VARCHAR2(255) UNIQUE NOT NULL,
     token_type VARCHAR2(255) NOT NULL,
     expiration_date DATE,
@@ -89,8 +108,11 @@ INSERT INTO categories(name) VALUES('Đồ gia dụng');
 INSERT INTO categories(name) VALUES('Phụ kiện');
 
 
+-- Pooled by Hibernate (allocationSize = 50); DEFAULT keeps plain INSERTs working
+CREATE SEQUENCE products_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE products (
-    id NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    id NUMBER DEFAULT products_seq.NEXTVAL,
     name NVARCHAR2(255) NOT NULL,
     price NUMBER NOT NULL CHECK (price >= 0),
     thumbnail VARCHAR2(255)  DEFAULT '',
@@ -102,18 +124,33 @@ CREATE TABLE products (
     CONSTRAINT fk_category_id FOREIGN KEY (category_id) REFERENCES categories(id)
 );
 
+-- Listing sorts (sort_by = price / created_at / name), id breaks ties
+CREATE INDEX idx_products_price ON products (price, id);
+CREATE INDEX idx_products_created_at ON products (created_at, id);
+CREATE INDEX idx_products_name ON products (name, id);
+CREATE INDEX idx_products_category_id ON products (category_id, id);
+
+-- Pooled by Hibernate (allocationSize = 50); DEFAULT keeps plain INSERTs working
+CREATE SEQUENCE product_images_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE product_images (
-    id NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    id NUMBER DEFAULT product_images_seq.NEXTVAL,
     product_id NUMBER,
     CONSTRAINT fk_product_images_product_id
         FOREIGN KEY (product_id)
         REFERENCES products (id) ON DELETE CASCADE,
     image_url VARCHAR2(300),
+    -- resized copies, "<width>:<file>" comma separated; NULL until generated
+    variants VARCHAR2(1000),
     PRIMARY KEY (id)
 );
 
+-- Pooled by Hibernate (allocationSize = 50); DEFAULT keeps plain INSERTs working
+-- Starts past the seeded ids below plus one allocation block
+CREATE SEQUENCE orders_seq START WITH 101 INCREMENT BY 50;
+
 CREATE TABLE orders (
-    id NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    id NUMBER DEFAULT orders_seq.NEXTVAL,
     user_id NUMBER,
     fullname NVARCHAR2(255) DEFAULT '',
     email VARCHAR2(255) DEFAULT '',
@@ -134,65 +171,68 @@ CREATE TABLE orders (
     CONSTRAINT chk_orders_status CHECK (status IN ('pending', 'processing', 'shipped', 'cancelled','deliverd'))
 );
 
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'John Smith', 'john@example.com', '1234567890', '123 Main St', 'Note 1', 'pending', 500);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Eric Thompson', 'eric@example.com', '9876143210', '416 Elm St', 'Note 2', 'pending', 400);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Hans', 'hans@example.com', '1111111111', '789 Oak St', 'Note 3', 'pending', 300);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Alice Johnson', 'alice@example.com', '1111234167', '789 Cherry Ave', 'Note 4', 'pending', 200);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Robert Williams', 'robert@example.com', '1119876143', '321 Maple Rd', 'Note 1', 'pending', 100);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Sarah Davis', 'sarah@example.com', '1114441111', '987 Elm St', 'Note 6', 'pending', 210);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Michael Anderson', 'michael@example.com', '1116667777', '614 Oak Ave', 'Note 7', 'pending', 310);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Emma Wilson', 'emma@example.com', '1118889999', '789 Maple Ln', 'Note 8', 'pending', 410);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Olivia Brown', 'olivia@example.com', '1111112222', '987 Pine St', 'Note 47', 'pending', 310);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'William Davis', 'william@example.com', '1113334444', '614 Elm Ave', 'Note 48', 'pending', 210);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Sophia Wilson', 'sophia@example.com', '1111116666', '789 Oak Ln', 'Note 49', 'pending', 110);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Alexander Anderson', 'alexander@example.com', '1117778888', '416 Maple Lane', 'Note 10', 'pending', 410);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Ava Thompson', 'ava@example.com', '1119990000', '987 Walnut Rd', 'Note 11', 'pending', 110);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Daniel Johnson', 'daniel@example.com', '1112223333', '614 Pine Ave', 'Note 12', 'pending', 610);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Mia Williams', 'mia@example.com', '1114441111', '789 Elm St', 'Note 13', 'pending', 710);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'James Davis', 'james@example.com', '1116667777', '416 Oak Ave', 'Note 14', 'pending', 810);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Benjamin Thompson', 'benjamin@example.com', '1110001111', '614 Walnut Rd', 'Note 16', 'pending', 110);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Sophia Anderson', 'sophia@example.com', '1111112222', '987 Pine St', 'Note 17', 'pending', 310);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Elijah Davis', 'elijah@example.com', '1113334444', '614 Elm Ave', 'Note 18', 'pending', 210);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Ava Wilson', 'ava@example.com', '1111116666', '789 Oak Ln', 'Note 19', 'pending', 110);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Oliver Thompson', 'oliver@example.com', '1117778888', '416 Maple Lane', 'Note 60', 'pending', 410);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Mia Johnson', 'mia@example.com', '1119990000', '987 Walnut Rd', 'Note 61', 'pending', 110);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'James Williams', 'james@example.com', '1112223333', '614 Pine Ave', 'Note 62', 'pending', 610);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Charlotte Davis', 'charlotte@example.com', '1114441111', '789 Elm St', 'Note 63', 'pending', 710);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Benjamin Wilson', 'benjamin@example.com', '1116667777', '416 Oak Ave', 'Note 64', 'pending', 810);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (2, 'Amelia Thompson', 'amelia@example.com', '1118889999', '321 Maple Ln', 'Note 61', 'pending', 910);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Henry Johnson', 'henry@example.com', '1110001111', '614 Walnut Rd', 'Note 66', 'pending', 110);
-    INSERT INTO orders (user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
-    (1, 'Emily Davis', 'emily@example.com', '1112223333', '416 Walnut Lane', 'Note 46', 'pending', 110);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (1, 2, 'John Smith', 'john@example.com', '1234567890', '123 Main St', 'Note 1', 'pending', 500);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (2, 1, 'Eric Thompson', 'eric@example.com', '9876143210', '416 Elm St', 'Note 2', 'pending', 400);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (3, 2, 'Hans', 'hans@example.com', '1111111111', '789 Oak St', 'Note 3', 'pending', 300);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (4, 1, 'Alice Johnson', 'alice@example.com', '1111234167', '789 Cherry Ave', 'Note 4', 'pending', 200);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (5, 2, 'Robert Williams', 'robert@example.com', '1119876143', '321 Maple Rd', 'Note 1', 'pending', 100);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (6, 2, 'Sarah Davis', 'sarah@example.com', '1114441111', '987 Elm St', 'Note 6', 'pending', 210);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (7, 1, 'Michael Anderson', 'michael@example.com', '1116667777', '614 Oak Ave', 'Note 7', 'pending', 310);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (8, 2, 'Emma Wilson', 'emma@example.com', '1118889999', '789 Maple Ln', 'Note 8', 'pending', 410);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (9, 2, 'Olivia Brown', 'olivia@example.com', '1111112222', '987 Pine St', 'Note 47', 'pending', 310);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (10, 1, 'William Davis', 'william@example.com', '1113334444', '614 Elm Ave', 'Note 48', 'pending', 210);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (11, 2, 'Sophia Wilson', 'sophia@example.com', '1111116666', '789 Oak Ln', 'Note 49', 'pending', 110);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (12, 1, 'Alexander Anderson', 'alexander@example.com', '1117778888', '416 Maple Lane', 'Note 10', 'pending', 410);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (13, 2, 'Ava Thompson', 'ava@example.com', '1119990000', '987 Walnut Rd', 'Note 11', 'pending', 110);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (14, 1, 'Daniel Johnson', 'daniel@example.com', '1112223333', '614 Pine Ave', 'Note 12', 'pending', 610);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (15, 2, 'Mia Williams', 'mia@example.com', '1114441111', '789 Elm St', 'Note 13', 'pending', 710);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (16, 1, 'James Davis', 'james@example.com', '1116667777', '416 Oak Ave', 'Note 14', 'pending', 810);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (17, 1, 'Benjamin Thompson', 'benjamin@example.com', '1110001111', '614 Walnut Rd', 'Note 16', 'pending', 110);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (18, 2, 'Sophia Anderson', 'sophia@example.com', '1111112222', '987 Pine St', 'Note 17', 'pending', 310);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (19, 1, 'Elijah Davis', 'elijah@example.com', '1113334444', '614 Elm Ave', 'Note 18', 'pending', 210);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (20, 2, 'Ava Wilson', 'ava@example.com', '1111116666', '789 Oak Ln', 'Note 19', 'pending', 110);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (21, 1, 'Oliver Thompson', 'oliver@example.com', '1117778888', '416 Maple Lane', 'Note 60', 'pending', 410);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (22, 2, 'Mia Johnson', 'mia@example.com', '1119990000', '987 Walnut Rd', 'Note 61', 'pending', 110);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (23, 1, 'James Williams', 'james@example.com', '1112223333', '614 Pine Ave', 'Note 62', 'pending', 610);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (24, 2, 'Charlotte Davis', 'charlotte@example.com', '1114441111', '789 Elm St', 'Note 63', 'pending', 710);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (25, 1, 'Benjamin Wilson', 'benjamin@example.com', '1116667777', '416 Oak Ave', 'Note 64', 'pending', 810);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (26, 2, 'Amelia Thompson', 'amelia@example.com', '1118889999', '321 Maple Ln', 'Note 61', 'pending', 910);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (27, 1, 'Henry Johnson', 'henry@example.com', '1110001111', '614 Walnut Rd', 'Note 66', 'pending', 110);
+    INSERT INTO orders (id, user_id, fullname, email, phone_number, address, note, status, total_money) VALUES
+    (28, 1, 'Emily Davis', 'emily@example.com', '1112223333', '416 Walnut Lane', 'Note 46', 'pending', 110);
+
+-- Pooled by Hibernate (allocationSize = 50); DEFAULT keeps plain INSERTs working
+CREATE SEQUENCE order_details_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE order_details (
-    id NUMBER GENERATED BY DEFAULT AS IDENTITY,
+    id NUMBER DEFAULT order_details_seq.NEXTVAL,
     order_id NUMBER,
     product_id NUMBER,
     price NUMBER NOT NULL CHECK (price >= 0),
@@ -0,0 +1,21 @@
+package com.shopapp.components;
+
+import com.shopapp.services.interfaces.IProductCacheWarmService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Part of the readiness group: traffic is only routed here once the hot product pages are cached
+@Component
+@RequiredArgsConstructor
+public class ProductCacheWarmHealthIndicator implements HealthIndicator {
+
+    private final IProductCacheWarmService productCacheWarmService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = productCacheWarmService.isWarmedUp() ? Health.up() : Health.outOfService();
+        return builder.withDetails(productCacheWarmService.getStatistics()).build();
+    }
+}
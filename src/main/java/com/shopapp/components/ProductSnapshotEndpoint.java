@@ -0,0 +1,23 @@
+package com.shopapp.components;
+
+import com.shopapp.services.interfaces.IProductSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// GET {management base-path}/productsnapshot: memory use and query latency of the columnar snapshot
+@Component
+@Endpoint(id = "productsnapshot")
+@RequiredArgsConstructor
+public class ProductSnapshotEndpoint {
+
+    private final IProductSnapshotService productSnapshotService;
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return productSnapshotService.getStatistics();
+    }
+}
@@ -7,12 +7,16 @@ import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.LocalDateTime;
@@ -22,6 +26,7 @@ import java.time.format.DateTimeFormatter;
 public class RedisConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(RedisConfig.class);
+    private static final long SUBSCRIBE_RETRY_INTERVAL_MS = 5_000;
     @Value("${spring.data.redis.host}") // Read 'spring.data.redis.host' property from application.yml
     private String redisHost;
 
@@ -51,6 +56,52 @@ public class RedisConfig {
         return template;
     }
 
+    // Values are stored as-is: used for pre-serialized HTTP bodies
+    @Bean
+    public RedisTemplate<String, byte[]> redisBytesTemplate() {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisConnectionFactory());
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    // Receives cross-node cache invalidation messages (see ProductRedisService)
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer() {
+        // Started in the background so the app still boots (uncached) while Redis is unreachable
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(redisConnectionFactory());
+        return container;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRedisMessageListenerContainer() {
+        RedisMessageListenerContainer container = redisMessageListenerContainer();
+        Thread.ofVirtual().name("redis-subscriber").start(() -> {
+            while (!container.isListening()) {
+                try {
+                    container.start();
+                } catch (Exception e) {
+                    logger.warn("Cannot subscribe to Redis, retrying: {}", e.getMessage());
+                    container.stop();
+                    try {
+                        Thread.sleep(SUBSCRIBE_RETRY_INTERVAL_MS);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
     @Bean
     public ObjectMapper redisObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
@@ -0,0 +1,25 @@
+package com.shopapp.configurations;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Value("${async-request.timeout}")
+    private Duration asyncRequestTimeout;
+
+    // @EnableWebMvc ignores spring.mvc.async.*, so streamed responses (e.g. the product export) are set up here
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("mvc-async-");
+        taskExecutor.setVirtualThreads(true);
+        configurer.setTaskExecutor(taskExecutor);
+        configurer.setDefaultTimeout(asyncRequestTimeout.toMillis());
+    }
+}
@@ -26,7 +26,9 @@
 package com.shopapp.configurations;
 
 import com.shopapp.filters.JwtTokenFilter;
+import com.shopapp.models.Role;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -64,6 +66,10 @@ public class WebSecurityConfig {
                 .addFilterBefore(jwtTokenFilter, UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(requests -> {
                     requests
+                            // Actuator paths are not MVC handler paths, so the endpoints are matched by id
+                            .requestMatchers(EndpointRequest.to("health")).permitAll()
+                            // Cache hit rates and JVM / pool internals; scrapers send an admin bearer token
+                            .requestMatchers(EndpointRequest.to("metrics", "prometheus")).hasRole(Role.ADMIN)
                             .requestMatchers(
                                     String.format("%s/users/register", apiPrefix),
                                     String.format("%s/users/login", apiPrefix),
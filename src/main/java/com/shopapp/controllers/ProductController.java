@@ -1,41 +1,69 @@
 package com.shopapp.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.github.javafaker.Faker;
+import com.shopapp.components.StaticFileSender;
 import com.shopapp.dtos.*;
+import com.shopapp.exceptions.InvalidParamException;
 import com.shopapp.models.Product;
 import com.shopapp.models.ProductImage;
+import com.shopapp.responses.CategoryFacetResponse;
+import com.shopapp.responses.ProductImportResponse;
 import com.shopapp.responses.ProductListResponse;
 import com.shopapp.responses.ProductResponse;
+import com.shopapp.responses.ProductSuggestionResponse;
 import com.shopapp.services.impl.ProductService;
+import com.shopapp.services.interfaces.IProductCacheWarmService;
+import com.shopapp.services.interfaces.IProductExportService;
+import com.shopapp.services.interfaces.IProductFacetService;
+import com.shopapp.services.interfaces.IProductImageVariantService;
+import com.shopapp.services.interfaces.IProductImportService;
 import com.shopapp.services.interfaces.IProductRedisService;
+import com.shopapp.services.interfaces.IProductSuggestService;
+import com.shopapp.utils.CursorUtils;
+import com.shopapp.utils.GzipUtils;
+import com.shopapp.utils.TextNormalizer;
 
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @RestController
 @RequestMapping("${api.prefix}/products")
@@ -44,8 +72,32 @@ import java.util.UUID;
 public class ProductController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+    private static final int MAXIMUM_PRODUCTS_PER_LOOKUP = 100;
+    private static final int MAXIMUM_SUGGESTIONS = 20;
+    private static final java.nio.file.Path UPLOAD_DIR = Paths.get(ProductImage.UPLOAD_DIR);
+    // Uploaded files get a UUID name and are never rewritten, so clients may keep them for good
+    private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic().immutable();
+    // The upload check trusts the client's Content-Type, so an SVG or a renamed HTML file is only ever downloaded
+    private static final Set<MediaType> INLINE_IMAGE_TYPES = Set.of(MediaType.IMAGE_JPEG, MediaType.IMAGE_PNG,
+            MediaType.IMAGE_GIF, MediaType.parseMediaType("image/webp"));
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    // Only indexed columns can be sorted on; this also bounds the number of cached page variants
+    private static final Map<String, String> SORTABLE_FIELDS = Map.of(
+            "id", "id",
+            "price", "price",
+            "created_at", "createdAt",
+            "name", "name");
     private final ProductService productService;
     private final IProductRedisService productRedisService;
+    private final IProductFacetService productFacetService;
+    private final IProductSuggestService productSuggestService;
+    private final IProductImportService productImportService;
+    private final IProductExportService productExportService;
+    private final IProductCacheWarmService productCacheWarmService;
+    private final IProductImageVariantService productImageVariantService;
+    private final StaticFileSender staticFileSender;
 
     @PostMapping("")
     @Operation(summary = "Create Product")
@@ -74,13 +126,14 @@ public class ProductController {
     public ResponseEntity<?> uploadImages(
             @PathVariable("id") Long productId,
             @ModelAttribute("files") List<MultipartFile> files) {
+        List<String> filenames = new ArrayList<>();
         try {
-            Product existingProduct = productService.getProductById(productId);
             files = files == null ? new ArrayList<MultipartFile>() : files;
             if (files.size() > ProductImage.MAXIMUM_IMAGES_PER_PRODUCT) {
                 return ResponseEntity.badRequest().body("You can only upload maximum 5 images");
             }
-            List<ProductImage> productImages = new ArrayList<>();
+            // Every file is checked before any is written, so a rejected request leaves nothing on disk
+            List<MultipartFile> imageFiles = new ArrayList<>();
             for (MultipartFile file : files) {
                 if (file.getSize() == 0) {
                     continue;
@@ -95,22 +148,54 @@ public class ProductController {
                     return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
                             .body("File must be an image");
                 }
-                
-                String filename = storeFile(file); 
-                
-                ProductImage productImage = productService.createProductImage(
-                        existingProduct.getId(),
-                        ProductImageDTO.builder()
-                                .imageUrl(filename)
-                                .build());
-                productImages.add(productImage);
+                imageFiles.add(file);
             }
+            filenames = storeFiles(imageFiles);
+            // One transaction: product lookup, COUNT of its images and a batch insert of the new rows
+            List<ProductImage> productImages = productService.createProductImages(productId, filenames);
+            // Committed by now, so the workers can load the rows; the response still shows the originals only
+            productImageVariantService.submit(productImages);
             return ResponseEntity.ok().body(productImages);
         } catch (Exception e) {
+            deleteFiles(filenames);
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    // Written concurrently on virtual threads; if one file fails, the others are removed again
+    private List<String> storeFiles(List<MultipartFile> files) throws Exception {
+        List<Future<String>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : files) {
+                futures.add(executor.submit(() -> storeFile(file)));
+            }
+        }
+        List<String> filenames = new ArrayList<>();
+        Exception failure = null;
+        for (Future<String> future : futures) {
+            try {
+                filenames.add(future.get());
+            } catch (ExecutionException e) {
+                failure = e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        if (failure != null) {
+            deleteFiles(filenames);
+            throw failure;
+        }
+        return filenames;
+    }
+
+    private void deleteFiles(List<String> filenames) {
+        for (String filename : filenames) {
+            try {
+                Files.deleteIfExists(UPLOAD_DIR.resolve(filename));
+            } catch (IOException e) {
+                logger.warn("Cannot delete uploaded file {}: {}", filename, e.getMessage());
+            }
+        }
+    }
+
     private String storeFile(MultipartFile file) throws IOException {
         if (!isImageFile(file) || file.getOriginalFilename() == null) {
             throw new IOException("Invalid image format");
@@ -120,19 +205,16 @@ public class ProductController {
         // Add UUID to front to make sure it is the only
         String uniqueFilename = UUID.randomUUID().toString() + "_" + filename;
 
-        // Path to folder u want to save
-        java.nio.file.Path uploadDir = Paths.get("uploads");
-
         // Check if it exists or create
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
+        if (!Files.exists(UPLOAD_DIR)) {
+            Files.createDirectories(UPLOAD_DIR);
         }
 
         // Path to file
-        java.nio.file.Path destination = Paths.get(uploadDir.toString(), uniqueFilename);
+        java.nio.file.Path destination = UPLOAD_DIR.resolve(uniqueFilename).toAbsolutePath();
 
-        // Coppy file to folder
-        Files.copy(file.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
+        // The container moves its multipart temp file when it can, and only copies the stream otherwise
+        file.transferTo(destination.toFile());
         return uniqueFilename;
     }
 
@@ -143,63 +225,247 @@ public class ProductController {
 
     @GetMapping("")
     @Operation(summary = "Get Product List")
-    public ResponseEntity<ProductListResponse> getProducts(
-            @RequestParam(defaultValue = "") String keyword,
+    public ResponseEntity<byte[]> getProducts(
+            @RequestParam(defaultValue = "", name = "keyword") String rawKeyword,
             @RequestParam(defaultValue = "0", name = "category_id") Long categoryId,
+            @RequestParam(required = false, name = "min_price") Float minPrice,
+            @RequestParam(required = false, name = "max_price") Float maxPrice,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int limit
-    ) throws JsonProcessingException {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "id", name = "sort_by") String sortBy,
+            @RequestParam(defaultValue = "asc", name = "sort_dir") String sortDir,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) throws Exception {
+        // "  red   shoes " and "red shoes" return the same products, so they share one cached page
+        String keyword = TextNormalizer.collapseSpaces(rawKeyword);
+        Sort sort = getSort(sortBy, sortDir);
+        if ((minPrice != null && minPrice < 0) || (maxPrice != null && maxPrice < 0)
+                || (minPrice != null && maxPrice != null && minPrice > maxPrice)) {
+            throw new InvalidParamException("Price range must satisfy 0 <= min_price <= max_price");
+        }
+
+        // Read before loading: a body newer than its ETag only costs a later full response, never a stale 304
+        long catalogVersion = productRedisService.getCatalogVersion();
+        boolean acceptsGzip = GzipUtils.acceptsGzip(acceptEncoding);
+        String listVersion = catalogVersion >= 0 ? String.valueOf(catalogVersion) : null;
+        // Whether the page would be sent gzipped depends on its size, so either variant's ETag may match
+        String matchedETag = listVersion == null ? null : getMatchedETag(ifNoneMatch,
+                getETag(listVersion, acceptsGzip), getETag(listVersion, false));
+        if (matchedETag != null) {
+            return notModified(matchedETag);
+        }
+
+        if (cursor != null) {
+            // Cursors encode the last id only, so they need the listing in id order
+            if (!sort.equals(getSort("id", "asc")) || fuzzy) {
+                throw new InvalidParamException("Cursor paging only supports sort_by=id&sort_dir=asc without fuzzy");
+            }
+            return jsonBody(getProductsAfter(keyword, categoryId, minPrice, maxPrice, cursor, limit),
+                    acceptsGzip, listVersion);
+        }
+
+        // Fuzzy results are ranked by relevance, so they are requested unsorted
+        PageRequest pageRequest = fuzzy ? PageRequest.of(page, limit) : PageRequest.of(page, limit, sort);
 
-        int totalPages = 0;
-        PageRequest pageRequest = PageRequest.of(
-                page, limit,
-                //Sort.by("createdAt").descending()
-                Sort.by("id").ascending()
-        );
+        logger.info(String.format("keyword = %s, category_id = %d, price = %s-%s, page = %d, limit = %d, sort = %s",
+                keyword, categoryId, minPrice, maxPrice, page, limit, pageRequest.getSort()));
 
-        logger.info(String.format("keyword = %s, category_id = %d, page = %d, limit = %d",
-                keyword, categoryId, page, limit));
+        // Counted so the most requested pages can be rebuilt ahead of traffic after a deploy or an eviction
+        productCacheWarmService.recordRequest(keyword, categoryId, minPrice, maxPrice, pageRequest, fuzzy);
+        // On a miss only one request per page runs the query, the others wait for its result
+        byte[] body = productRedisService
+                .getAllProducts(keyword, categoryId, minPrice, maxPrice, pageRequest, () -> productService
+                        .getProductList(keyword, categoryId, minPrice, maxPrice, pageRequest, fuzzy));
 
-        List<ProductResponse> productResponses = productRedisService
-                .getAllProducts(keyword, categoryId, pageRequest);
+        return jsonBody(body, acceptsGzip, listVersion);
+    }
+
+    // Ties are broken by id so that pages never overlap or skip products with equal values
+    private Sort getSort(String sortBy, String sortDir) throws InvalidParamException {
+        String property = SORTABLE_FIELDS.get(sortBy.toLowerCase());
+        if (property == null) {
+            throw new InvalidParamException("sort_by must be one of " + SORTABLE_FIELDS.keySet());
+        }
+        Sort.Direction direction = switch (sortDir.toLowerCase()) {
+            case "asc" -> Sort.Direction.ASC;
+            case "desc" -> Sort.Direction.DESC;
+            default -> throw new InvalidParamException("sort_dir must be asc or desc");
+        };
+        Sort sort = Sort.by(direction, property);
+        return property.equals("id") ? sort : sort.and(Sort.by(direction, "id"));
+    }
 
-        if (productResponses!=null && !productResponses.isEmpty()) {
-            totalPages = productResponses.get(0).getTotalPages();
+    // Cached bodies are written as-is; gzip ones are only inflated for clients that cannot accept them
+    private ResponseEntity<byte[]> jsonBody(byte[] body, boolean acceptsGzip, String version) {
+        boolean gzipped = GzipUtils.isGzipped(body) && acceptsGzip;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (version != null) {
+            response.eTag(getETag(version, gzipped));
         }
+        if (gzipped) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body);
+        }
+        return response.body(GzipUtils.isGzipped(body) ? GzipUtils.gunzip(body) : body);
+    }
+
+    // Strong ETags differ per content coding, so the gzip and plain bodies get their own
+    private String getETag(String version, boolean gzipped) {
+        return "\"" + version + (gzipped ? "-gzip" : "") + "\"";
+    }
 
-        if(productResponses == null) {
-            Page<ProductResponse> productPage = productService
-                    .getAllProducts(keyword, categoryId, pageRequest);
-            // Get total pages
-            totalPages = productPage.getTotalPages();
-            productResponses = productPage.getContent();
-            // Add total pages to each product response
-            for (ProductResponse product : productResponses) {
-                product.setTotalPages(totalPages);
+    // The first of our ETags (preferred variant first) that If-None-Match lists, or null when the client's copy is stale
+    private String getMatchedETag(String ifNoneMatch, String... eTags) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        Set<String> requested = new HashSet<>();
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            requested.add(candidate.startsWith("W/") ? candidate.substring(2) : candidate);
+        }
+        for (String eTag : eTags) {
+            if (requested.contains("*") || requested.contains(eTag)) {
+                return eTag;
             }
-            
-            productRedisService.saveAllProducts(
-                    productResponses,
-                    keyword,
-                    categoryId,
-                    pageRequest
-            );
         }
+        return null;
+    }
+
+    // Same validator and Vary as the 200 it stands for, so caches keep the gzip and plain variants apart
+    private ResponseEntity<byte[]> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    // Cursor (keyset) mode for infinite scroll: no offset skipping and no COUNT, so deep pages cost the same
+    private byte[] getProductsAfter(String keyword, Long categoryId, Float minPrice, Float maxPrice,
+            String cursor, int limit)
+            throws Exception {
+        long afterId = CursorUtils.decode(cursor);
+        if (limit <= 0) {
+            throw new InvalidParamException("Limit must be greater than 0");
+        }
+
+        logger.info(String.format("keyword = %s, category_id = %d, after_id = %d, limit = %d",
+                keyword, categoryId, afterId, limit));
+
+        return productRedisService.getProductsAfter(keyword, categoryId, minPrice, maxPrice, afterId, limit, () -> {
+            Slice<ProductResponse> productSlice = productService
+                    .getProductsAfter(keyword, categoryId, minPrice, maxPrice, afterId, limit);
+            List<ProductResponse> productResponses = productSlice.getContent();
+            return ProductListResponse.builder()
+                    .products(productResponses)
+                    .nextCursor(productSlice.hasNext()
+                            ? CursorUtils.encode(productResponses.get(productResponses.size() - 1).getId())
+                            : null)
+                    .build();
+        });
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest Products By Name Prefix")
+    public ResponseEntity<List<ProductSuggestionResponse>> suggestProducts(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit) throws InvalidParamException {
+        if (limit <= 0 || limit > MAXIMUM_SUGGESTIONS) {
+            throw new InvalidParamException("Limit must be between 1 and " + MAXIMUM_SUGGESTIONS);
+        }
+        // Answered from memory on every keystroke, the database is never queried
+        return ResponseEntity.ok(productSuggestService.suggest(prefix, limit));
+    }
 
-        return ResponseEntity.ok(ProductListResponse
-                        .builder()
-                        .products(productResponses)
-                        .totalPages(totalPages)
-                        .build());
+    @GetMapping("/facets")
+    @Operation(summary = "Get Product Count Per Category")
+    public ResponseEntity<List<CategoryFacetResponse>> getProductFacets() {
+        List<CategoryFacetResponse> facets = productFacetService.getCategoryCounts()
+                .entrySet()
+                .stream()
+                .map(entry -> CategoryFacetResponse.builder()
+                        .categoryId(entry.getKey())
+                        .productCount(entry.getValue())
+                        .build())
+                .toList();
+        return ResponseEntity.ok(facets);
+    }
+
+    @GetMapping("/by-ids")
+    @Operation(summary = "Get Products By ProductIds")
+    public ResponseEntity<byte[]> getProductsByIds(
+            @RequestParam List<Long> ids,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+            throws Exception {
+        if (ids.size() > MAXIMUM_PRODUCTS_PER_LOOKUP) {
+            throw new InvalidParamException(
+                    "Number of ids must be <= " + MAXIMUM_PRODUCTS_PER_LOOKUP);
+        }
+        // One call for a whole cart: cached details come from one MGET, the rest from one IN query
+        byte[] body = productRedisService.getProductDetails(ids, productService::getProductsByIds);
+        boolean acceptsGzip = GzipUtils.acceptsGzip(acceptEncoding);
+        return jsonBody(body, acceptsGzip, null);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @Operation(summary = "Export All Products As NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        // Written from a database cursor while the client reads, without paging, counting or caching
+        StreamingResponseBody body = productExportService::exportProducts;
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/images/{filename}")
+    @Operation(summary = "Get Product Image")
+    public void getImage(
+            @PathVariable("filename") String filename,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        java.nio.file.Path uploadDir = UPLOAD_DIR.toAbsolutePath().normalize();
+        java.nio.file.Path file = uploadDir.resolve(filename).normalize();
+        // Only plain names of files directly in uploads/: "..", separators and absolute paths are refused
+        if (filename.contains("/") || filename.contains("\\")
+                || !uploadDir.equals(file.getParent()) || !Files.isRegularFile(file)) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        MediaType contentType = MediaTypeFactory.getMediaType(filename)
+                .filter(INLINE_IMAGE_TYPES::contains)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        if (MediaType.APPLICATION_OCTET_STREAM.equals(contentType)) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(filename).build().toString());
+        }
+        staticFileSender.send(file, contentType, IMAGE_CACHE_CONTROL, request, response);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get Product By ProductId")
     public ResponseEntity<?> getProductById(
-            @PathVariable("id") Long productId) {
+            @PathVariable("id") Long productId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Product existingProduct = productService.getProductById(productId);
-            return ResponseEntity.ok(ProductResponse.fromProduct(existingProduct));
+            // Cached per product and evicted by ProductListener; a miss is one fetch-joined query
+            byte[] body = productRedisService.getProductDetail(productId,
+                    () -> ProductResponse.fromProduct(productService.getDetailProduct(productId)));
+            // The ETag is derived from the cached bytes, so revalidation never reaches the database
+            String version = DigestUtils.md5DigestAsHex(body);
+            boolean acceptsGzip = GzipUtils.acceptsGzip(acceptEncoding);
+            String matchedETag = getMatchedETag(ifNoneMatch,
+                    getETag(version, GzipUtils.isGzipped(body) && acceptsGzip), getETag(version, false));
+            if (matchedETag != null) {
+                return notModified(matchedETag);
+            }
+            return jsonBody(body, acceptsGzip, version);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -219,6 +485,15 @@ public class ProductController {
 
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Import Products From CSV Or NDJSON")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<ProductImportResponse> importProducts(HttpServletRequest request) throws Exception {
+        // The body is read line by line while rows are inserted, it is never held in memory as a whole
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV);
+        return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), csv));
+    }
+
     @PostMapping("/generateFakeProducts")
     @Operation(summary = "Generate Demo 1000 Products")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -0,0 +1,7 @@
+package com.shopapp.events;
+
+import java.util.Set;
+
+// Published by ProductRedisService after cached product pages were evicted on this node ("*" = all of them)
+public record ProductCacheEvictedEvent(Set<String> tags) {
+}
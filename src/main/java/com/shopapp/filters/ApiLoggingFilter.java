@@ -1,6 +1,7 @@
 package com.shopapp.filters;
 
 import java.io.IOException;
+import java.util.List;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -18,6 +19,11 @@ import org.springframework.web.util.ContentCachingResponseWrapper;
 public class ApiLoggingFilter extends OncePerRequestFilter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ApiLoggingFilter.class);
+    // Keeps streamed uploads (e.g. product imports) from being buffered whole by the wrapper
+    private static final int MAX_CACHED_REQUEST_BYTES = 64 * 1024;
+    // Streamed responses go straight to the client instead of being held whole by the response wrapper;
+    // product images also need the real response for Tomcat's sendfile
+    private static final List<String> STREAMED_PATHS = List.of("/products/export", "/products/images/");
 
     @Override
     protected void doFilterInternal(@SuppressWarnings("null") HttpServletRequest request,
@@ -25,18 +31,27 @@ public class ApiLoggingFilter extends OncePerRequestFilter {
             @SuppressWarnings("null") FilterChain filterChain)
             throws ServletException, IOException {
 
-        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request, MAX_CACHED_REQUEST_BYTES);
+        HttpServletResponse responseToUse = isStreamed(request)
+                ? response
+                : new ContentCachingResponseWrapper(response);
 
         long startTime = System.currentTimeMillis();
-        filterChain.doFilter(requestWrapper, responseWrapper);
+        filterChain.doFilter(requestWrapper, responseToUse);
         long timeTaken = System.currentTimeMillis() - startTime;
 
         LOGGER.info(
                 "FINISHED PROCESSING : {} \"{}\" {} {}ms",
                 request.getMethod(), request.getRequestURI(), response.getStatus(),
                 timeTaken);
-        responseWrapper.copyBodyToResponse();
+        if (responseToUse instanceof ContentCachingResponseWrapper responseWrapper) {
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean isStreamed(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return STREAMED_PATHS.stream().anyMatch(uri::contains);
     }
 
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.shopapp.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import java.util.List;
 
 @Entity
@@ -16,7 +18,8 @@ import java.util.List;
 public class Product extends BaseEntity{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 350)
@@ -34,7 +37,14 @@ public class Product extends BaseEntity{
     @JoinColumn(name = "category_id")
     private Category category;
 
+    // Images of a whole page are initialized with one IN query instead of one select per product
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private List<ProductImage> productImages;
 
+    // Category at load time, so moving a product can also evict its old category's cache
+    @Transient
+    @JsonIgnore
+    private Long loadedCategoryId;
+
 }
@@ -5,6 +5,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
 @Entity
 @Table(name = "product_images")
 @Getter
@@ -13,10 +17,15 @@ import lombok.*;
 @NoArgsConstructor
 @Builder
 
+@EntityListeners(ProductImageListener.class)
 public class ProductImage {
     public static final int MAXIMUM_IMAGES_PER_PRODUCT = 6;
+    public static final String UPLOAD_DIR = "uploads";
+    // Recorded when the original could not be resized, so it is not queued again
+    public static final String NO_VARIANTS = "none";
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_images_seq")
+    @SequenceGenerator(name = "product_images_seq", sequenceName = "product_images_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -27,6 +36,24 @@ public class ProductImage {
     @Column(name = "image_url", length = 300)
     @JsonProperty("image_url")
     private String imageUrl;
-    
+
+    // "200:w200_<name>.jpg,400:w400_<name>.jpg", written by ProductImageVariantService; null until then
+    @Column(name = "variants", length = 1000)
+    @JsonIgnore
+    private String variantUrls;
+
+    // Resized copies by width, smallest first, so clients can pick the one that fits (e.g. as a srcset)
+    @JsonProperty("variants")
+    public Map<Integer, String> getVariants() {
+        if (variantUrls == null || variantUrls.isEmpty() || NO_VARIANTS.equals(variantUrls)) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, String> variants = new TreeMap<>();
+        for (String entry : variantUrls.split(",")) {
+            int separator = entry.indexOf(':');
+            variants.put(Integer.parseInt(entry.substring(0, separator)), entry.substring(separator + 1));
+        }
+        return variants;
+    }
 }
 
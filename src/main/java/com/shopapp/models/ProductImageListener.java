@@ -0,0 +1,55 @@
+package com.shopapp.models;
+
+import com.shopapp.services.interfaces.IProductInvalidationService;
+import jakarta.persistence.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Images are part of the cached product detail and pages, so adding, resizing or removing one evicts its product
+public class ProductImageListener {
+    private final ObjectProvider<IProductInvalidationService> productInvalidationServiceProvider;
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageListener.class);
+
+    // Resolved on first use: Hibernate builds the listener while the repositories, which the services need, are being created
+    public ProductImageListener(ObjectProvider<IProductInvalidationService> productInvalidationServiceProvider) {
+        this.productInvalidationServiceProvider = productInvalidationServiceProvider;
+    }
+
+    @PostPersist
+    public void postPersist(ProductImage productImage) {
+        logger.info("postPersist");
+        evictProduct(productImage);
+    }
+
+    @PostUpdate
+    public void postUpdate(ProductImage productImage) {
+        logger.info("postUpdate");
+        evictProduct(productImage);
+    }
+
+    @PostRemove
+    public void postRemove(ProductImage productImage) {
+        logger.info("postRemove");
+        evictProduct(productImage);
+    }
+
+    private void evictProduct(ProductImage productImage) {
+        Product product = productImage.getProduct();
+        if (product == null) {
+            return;
+        }
+        Set<Long> categoryIds = new HashSet<>();
+        if (product.getCategory() != null) {
+            categoryIds.add(product.getCategory().getId());
+        }
+        productInvalidationService().productChanged(product.getId(), categoryIds);
+    }
+
+    private IProductInvalidationService productInvalidationService() {
+        return productInvalidationServiceProvider.getObject();
+    }
+}
@@ -1,16 +1,29 @@
 package com.shopapp.models;
 
-import com.shopapp.services.interfaces.IProductRedisService;
+import com.shopapp.services.interfaces.IProductInvalidationService;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.HashSet;
+import java.util.Set;
 
-@AllArgsConstructor
 public class ProductListener {
-    private final IProductRedisService productRedisService;
+    // Redis evictions, facet counts and the in-memory indexes are all updated once per transaction, after commit
+    private final ObjectProvider<IProductInvalidationService> productInvalidationServiceProvider;
     private static final Logger logger = LoggerFactory.getLogger(ProductListener.class);
 
+    // Resolved on first use: Hibernate builds the listener while the repositories, which the services need, are being created
+    public ProductListener(ObjectProvider<IProductInvalidationService> productInvalidationServiceProvider) {
+        this.productInvalidationServiceProvider = productInvalidationServiceProvider;
+    }
+
+    @PostLoad
+    public void postLoad(Product product) {
+        product.setLoadedCategoryId(getCategoryId(product));
+    }
+
     @PrePersist
     public void prePersist(Product product) {
         logger.info("prePersist");
@@ -19,7 +32,10 @@ public class ProductListener {
     @PostPersist // save = persis
     public void postPersist(Product product) {
         logger.info("postPersist");
-        productRedisService.clear();
+        productInvalidationService().productChanged(product.getId(), getAffectedCategoryIds(product));
+        productInvalidationService().productMoved(null, getCategoryId(product));
+        product.setLoadedCategoryId(getCategoryId(product));
+        productInvalidationService().productSaved(product);
     }
 
     @PreUpdate
@@ -30,7 +46,10 @@ public class ProductListener {
     @PostUpdate
     public void postUpdate(Product product) {
         logger.info("postUpdate");
-        productRedisService.clear();
+        productInvalidationService().productChanged(product.getId(), getAffectedCategoryIds(product));
+        productInvalidationService().productMoved(product.getLoadedCategoryId(), getCategoryId(product));
+        product.setLoadedCategoryId(getCategoryId(product));
+        productInvalidationService().productSaved(product);
     }
 
     @PreRemove
@@ -41,6 +60,27 @@ public class ProductListener {
     @PostRemove
     public void postRemove(Product product) {
         logger.info("postRemove");
-        productRedisService.clear();
+        productInvalidationService().productChanged(product.getId(), getAffectedCategoryIds(product));
+        productInvalidationService().productMoved(getCategoryId(product), null);
+        productInvalidationService().productRemoved(product.getId());
+    }
+
+    private Long getCategoryId(Product product) {
+        return product.getCategory() == null ? null : product.getCategory().getId();
+    }
+
+    private Set<Long> getAffectedCategoryIds(Product product) {
+        Set<Long> categoryIds = new HashSet<>();
+        if (getCategoryId(product) != null) {
+            categoryIds.add(getCategoryId(product));
+        }
+        if (product.getLoadedCategoryId() != null) {
+            categoryIds.add(product.getLoadedCategoryId());
+        }
+        return categoryIds;
+    }
+
+    private IProductInvalidationService productInvalidationService() {
+        return productInvalidationServiceProvider.getObject();
     }
 }
@@ -1,7 +1,12 @@
 package com.shopapp.repositories;
 
 import com.shopapp.models.ProductImage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,5 +16,17 @@ import org.springframework.stereotype.Repository;
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
 
     List<ProductImage> findByProductId(Long productId);
-    
+
+    long countByProductId(Long productId);
+
+    // Images uploaded before their resized variants were generated, oldest first
+    @Query("SELECT pi.id FROM ProductImage pi WHERE pi.variantUrls IS NULL ORDER BY pi.id")
+    List<Long> findIdsWithoutVariants(Limit limit);
+
+    // Only sets the column, and only once: a concurrent edit of the image row is not overwritten
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProductImage pi SET pi.variantUrls = :variantUrls WHERE pi.id = :id AND pi.variantUrls IS NULL")
+    int updateVariantUrls(@Param("id") Long id, @Param("variantUrls") String variantUrls);
+
 }
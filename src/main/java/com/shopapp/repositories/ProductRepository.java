@@ -2,13 +2,21 @@ package com.shopapp.repositories;
 
 import com.shopapp.models.Category;
 import com.shopapp.models.Product;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -20,17 +28,70 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findByCategory(Category category);
 
+    // Listing queries join the category in; images are batch-loaded (see Product.productImages)
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE " +
             "(:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
-            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%)")
+            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%) " +
+            "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR p.price <= :maxPrice)")
     Page<Product> searchProducts
             (@Param("categoryId") Long categoryId,
-             @Param("keyword") String keyword, Pageable pageable);
+             @Param("keyword") String keyword,
+             @Param("minPrice") Float minPrice,
+             @Param("maxPrice") Float maxPrice, Pageable pageable);
+
+    // Keyset page: seeks past the last seen id instead of skipping rows, and never runs a COUNT
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId " +
+            "AND (:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
+            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%) " +
+            "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+            "ORDER BY p.id ASC")
+    List<Product> searchProductsAfter
+            (@Param("afterId") Long afterId,
+             @Param("categoryId") Long categoryId,
+             @Param("keyword") String keyword,
+             @Param("minPrice") Float minPrice,
+             @Param("maxPrice") Float maxPrice, Limit limit);
 
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.productImages WHERE p.id = :productId")
+    // SELECT ... FOR UPDATE: serializes writers that check a limit on the product's children
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :productId")
+    Optional<Product> findByIdForUpdate(@Param("productId") Long productId);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.productImages " +
+            "WHERE p.id = :productId")
     Optional<Product> getDetailProduct(@Param("productId") Long productId);
 
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE p.id IN :productIds")
     List<Product> findProductsByIds(@Param("productIds") List<Long> productIds);
+
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Whole catalog in id order, read through a cursor; the caller must close the stream inside a transaction
+    @EntityGraph(attributePaths = "category")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id ASC")
+    Stream<Product> streamAllOrderById();
+
+    // [id, price, category_id, created_at] rows in id order, used to build the columnar snapshot
+    @Query("SELECT p.id, p.price, c.id, p.createdAt FROM Product p LEFT JOIN p.category c " +
+            "WHERE p.id > :afterId ORDER BY p.id ASC")
+    List<Object[]> findSnapshotRowsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // [id, name] rows in id order, used to build the autocomplete index
+    @Query("SELECT p.id, p.name FROM Product p WHERE p.id > :afterId ORDER BY p.id ASC")
+    List<Object[]> findNamesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // [category_id, number of products] rows, used to rebuild the facet counts
+    @Query("SELECT p.category.id, COUNT(p) FROM Product p GROUP BY p.category.id")
+    List<Object[]> countProductsByCategory();
 }
 
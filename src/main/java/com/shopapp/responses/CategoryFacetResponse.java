@@ -0,0 +1,20 @@
+package com.shopapp.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+
+public class CategoryFacetResponse {
+
+    @JsonProperty("category_id")
+    private Long categoryId;
+
+    @JsonProperty("product_count")
+    private Long productCount;
+
+}
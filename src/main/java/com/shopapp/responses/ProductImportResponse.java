@@ -0,0 +1,39 @@
+package com.shopapp.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+
+public class ProductImportResponse {
+
+    private int imported;
+
+    private int failed;
+
+    // Only the first errors are listed, "failed" holds the full count
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class RowError {
+
+        @JsonProperty("line")
+        private long line;
+
+        @JsonProperty("message")
+        private String message;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.shopapp.responses;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,5 +18,9 @@ public class ProductListResponse {
     private List<ProductResponse> products;
 
     private int totalPages;
-    
+
+    // Only set in cursor mode; pass it back as ?cursor= to fetch the next page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
 }
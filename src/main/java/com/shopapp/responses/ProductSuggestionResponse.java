@@ -0,0 +1,17 @@
+package com.shopapp.responses;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+
+public class ProductSuggestionResponse {
+
+    private Long id;
+
+    private String name;
+
+}
@@ -0,0 +1,253 @@
+package com.shopapp.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopapp.events.ProductCacheEvictedEvent;
+import com.shopapp.services.interfaces.IProductCacheWarmService;
+import com.shopapp.services.interfaces.IProductRedisService;
+import com.shopapp.services.interfaces.IProductService;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/*
+ * Keeps the most requested listing pages cached. Requests are counted locally and added to a
+ * Redis sorted set shared by all nodes; the top pages are rebuilt at startup (readiness waits
+ * for it, see ProductCacheWarmHealthIndicator) and shortly after any eviction on this node.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductCacheWarmService implements IProductCacheWarmService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheWarmService.class);
+    private static final String HOT_PAGES_KEY = "product_hot_pages";
+    // Held by the node that halves the scores, so yesterday's hot pages give way to today's
+    private static final String DECAY_LOCK_KEY = "product_hot_pages:decayed";
+    private static final Duration DECAY_INTERVAL = Duration.ofHours(1);
+    private static final double DECAY_WEIGHT = 0.5;
+    private static final int MAXIMUM_TRACKED_PAGES = 1_000;
+    // Bounds the local counts between two flushes when many distinct pages are requested
+    private static final int MAXIMUM_PENDING_PAGES = 10_000;
+
+    private final IProductRedisService productRedisService;
+    private final IProductService productService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    @Value("${product-cache-warmer.enabled}")
+    private boolean enabled;
+    @Value("${product-cache-warmer.top-pages}")
+    private int topPages;
+    @Value("${product-cache-warmer.parallelism}")
+    private int parallelism;
+    @Value("${product-cache-warmer.flush-interval}")
+    private Duration flushInterval;
+
+    // Member of the sorted set: everything needed to rebuild one all_products:* page
+    record HotPage(String keyword, Long categoryId, Float minPrice, Float maxPrice,
+                   int page, int limit, String sort, boolean fuzzy) {
+    }
+
+    private final ConcurrentHashMap<HotPage, LongAdder> pendingCounts = new ConcurrentHashMap<>();
+    private final AtomicBoolean warmRequested = new AtomicBoolean(false);
+    private volatile boolean warmedUp = false;
+    private volatile int lastWarmPages = 0;
+    private volatile int lastWarmFailures = 0;
+    private volatile long lastWarmMs = 0L;
+
+    @Override
+    public void recordRequest(String keyword, Long categoryId, Float minPrice, Float maxPrice,
+                              PageRequest pageRequest, boolean fuzzy) {
+        if (!enabled || !productRedisService.isEnabled()) {
+            return;
+        }
+        HotPage page = new HotPage(keyword, categoryId, minPrice, maxPrice,
+                pageRequest.getPageNumber(), pageRequest.getPageSize(),
+                toSortKey(pageRequest.getSort()), fuzzy);
+        LongAdder count = pendingCounts.get(page);
+        if (count == null) {
+            if (pendingCounts.size() >= MAXIMUM_PENDING_PAGES) {
+                return;
+            }
+            count = pendingCounts.computeIfAbsent(page, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    @Override
+    public int warm() {
+        if (!enabled || !productRedisService.isEnabled()) {
+            return 0;
+        }
+        long startTime = System.currentTimeMillis();
+        Set<Object> members = redisTemplate.opsForZSet().reverseRange(HOT_PAGES_KEY, 0, topPages - 1);
+        if (members == null || members.isEmpty()) {
+            return 0;
+        }
+        AtomicInteger failures = new AtomicInteger();
+        // Bounded so a warm-up never sends more than `parallelism` queries to the database at once
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofVirtual().name("product-cache-warm-", 0).factory())) {
+            for (Object member : members) {
+                executor.submit(() -> {
+                    try {
+                        warmPage(objectMapper.convertValue(member, HotPage.class));
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        logger.debug("Cannot warm product page {}: {}", member, e.getMessage());
+                    }
+                });
+            }
+        }
+        lastWarmPages = members.size();
+        lastWarmFailures = failures.get();
+        lastWarmMs = System.currentTimeMillis() - startTime;
+        logger.info("Warmed {} hot product pages ({} failed) in {}ms",
+                lastWarmPages, lastWarmFailures, lastWarmMs);
+        return members.size();
+    }
+
+    @Override
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled && productRedisService.isEnabled());
+        statistics.put("warmedUp", warmedUp);
+        statistics.put("pendingPages", pendingCounts.size());
+        statistics.put("lastWarmPages", lastWarmPages);
+        statistics.put("lastWarmFailures", lastWarmFailures);
+        statistics.put("lastWarmMs", lastWarmMs);
+        return statistics;
+    }
+
+    // Evictions come in bursts (an import, a batch of updates), so they only flag the next tick
+    @EventListener
+    public void onProductCacheEvicted(ProductCacheEvictedEvent event) {
+        warmRequested.set(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmOnStartup() {
+        if (!enabled) {
+            warmedUp = true;
+            return;
+        }
+        Thread.ofVirtual().name("product-cache-warmer").start(() -> {
+            warmQuietly();
+            warmedUp = true;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(flushInterval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    flush();
+                } catch (Exception e) {
+                    logger.warn("Cannot flush product page request counts: {}", e.getMessage());
+                }
+                if (warmRequested.getAndSet(false)) {
+                    warmQuietly();
+                }
+            }
+        });
+    }
+
+    private void warmQuietly() {
+        try {
+            warm();
+        } catch (Exception e) {
+            // Pages are then loaded on demand, as without the warmer
+            logger.warn("Cannot warm product pages: {}", e.getMessage());
+        }
+    }
+
+    private void warmPage(HotPage page) throws Exception {
+        PageRequest pageRequest = page.fuzzy()
+                ? PageRequest.of(page.page(), page.limit())
+                : PageRequest.of(page.page(), page.limit(), fromSortKey(page.sort()));
+        // A page that is still cached is only read back into L1, a missing one is loaded once;
+        // neither is a user request, so the hit and miss counters are left alone
+        productRedisService.callUnrecorded(() -> productRedisService.getAllProducts(page.keyword(),
+                page.categoryId(), page.minPrice(), page.maxPrice(),
+                pageRequest, () -> productService.getProductList(page.keyword(), page.categoryId(),
+                        page.minPrice(), page.maxPrice(), pageRequest, page.fuzzy())));
+    }
+
+    // Adds the local counts to the shared sorted set in one pipelined round trip
+    @SuppressWarnings("unchecked")
+    private void flush() {
+        if (pendingCounts.isEmpty() || !productRedisService.isEnabled()) {
+            return;
+        }
+        // Increments racing with the removal are lost, which is fine for a popularity estimate
+        Map<HotPage, Long> counts = new HashMap<>();
+        for (HotPage page : new ArrayList<>(pendingCounts.keySet())) {
+            LongAdder count = pendingCounts.remove(page);
+            if (count != null) {
+                counts.put(page, count.sum());
+            }
+        }
+        boolean decay = Boolean.TRUE.equals(
+                redisTemplate.opsForValue().setIfAbsent(DECAY_LOCK_KEY, System.currentTimeMillis(), DECAY_INTERVAL));
+        byte[] key = RedisSerializer.string().serialize(HOT_PAGES_KEY);
+        RedisSerializer<Object> memberSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (decay) {
+                connection.zSetCommands().zUnionStore(key, Aggregate.SUM, Weights.of(DECAY_WEIGHT), key);
+            }
+            counts.forEach((page, count) ->
+                    connection.zSetCommands().zIncrBy(key, count, memberSerializer.serialize(page)));
+            connection.zSetCommands().zRemRange(key, 0, -(MAXIMUM_TRACKED_PAGES + 1));
+            return null;
+        });
+    }
+
+    // Same canonical form as the cache key, e.g. "price.desc,id.desc"
+    private String toSortKey(Sort sort) {
+        return sort.stream()
+                .map(order -> order.getProperty() + "." + order.getDirection().name().toLowerCase())
+                .collect(Collectors.joining(","));
+    }
+
+    private Sort fromSortKey(String sortKey) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String part : sortKey.split(",")) {
+            int separator = part.lastIndexOf('.');
+            if (separator > 0) {
+                orders.add(new Sort.Order(Sort.Direction.fromString(part.substring(separator + 1)),
+                        part.substring(0, separator)));
+            }
+        }
+        return Sort.by(orders);
+    }
+}
@@ -0,0 +1,77 @@
+package com.shopapp.services.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.shopapp.models.Product;
+import com.shopapp.repositories.ProductRepository;
+import com.shopapp.responses.ProductResponse;
+import com.shopapp.services.interfaces.IProductExportService;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ * Streams the catalog from a database cursor: products are written a chunk at a time and the
+ * persistence context is cleared after each chunk, so memory does not grow with the catalog.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductExportService implements IProductExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductExportService.class);
+    // Same as the @BatchSize of Product.productImages: a chunk's images are loaded by one IN query
+    private static final int CHUNK_SIZE = 100;
+    private static final byte NEWLINE = '\n';
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream outputStream) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long count = 0;
+        List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    count += writeChunk(chunk, writer, outputStream);
+                }
+            }
+            count += writeChunk(chunk, writer, outputStream);
+        }
+        logger.info("Exported {} products in {}ms", count, System.currentTimeMillis() - startTime);
+        return count;
+    }
+
+    private int writeChunk(List<Product> chunk, ObjectWriter writer, OutputStream outputStream)
+            throws IOException {
+        int size = chunk.size();
+        for (Product product : chunk) {
+            writer.writeValue(outputStream, ProductResponse.fromProduct(product));
+            outputStream.write(NEWLINE);
+        }
+        outputStream.flush();
+        chunk.clear();
+        // Detaches the written products (and their images) before the cursor loads the next ones
+        entityManager.clear();
+        return size;
+    }
+}
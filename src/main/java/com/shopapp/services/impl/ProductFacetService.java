@@ -0,0 +1,145 @@
+package com.shopapp.services.impl;
+
+import com.shopapp.repositories.ProductRepository;
+import com.shopapp.services.interfaces.IProductFacetService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Per-category product counts kept in a Redis hash (category id -> count). ProductListener moves
+ * products between the counters with HINCRBY (applied after commit, see ProductInvalidationService),
+ * so reading the facets costs O(#categories); the hash is rebuilt from one GROUP BY query at
+ * startup or whenever it is missing, and increments are dropped while it is.
+ */
+@Service
+public class ProductFacetService implements IProductFacetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetService.class);
+    private static final String CATEGORY_COUNTS_KEY = "product_facets:category";
+    // HINCRBY on a missing hash would recreate it with only the deltas, which getCategoryCounts would then
+    // trust; left missing, the next read rebuilds it from the database instead
+    private static final DefaultRedisScript<Long> ADJUST_COUNTS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end "
+                    + "for i = 1, #ARGV, 2 do redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+                    + "return 1",
+            Long.class);
+
+    private final ProductRepository productRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    @Value("${spring.data.redis.use-redis-cache}")
+    private boolean useRedisCache;
+
+    public ProductFacetService(ProductRepository productRepository,
+                               RedisTemplate<String, Object> redisTemplate) {
+        this.productRepository = productRepository;
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Map<Long, Long> getCategoryCounts() {
+        if (useRedisCache == false) {
+            return countCategories();
+        }
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(CATEGORY_COUNTS_KEY);
+            if (entries.isEmpty()) {
+                return saveCounts(countCategories());
+            }
+            Map<Long, Long> counts = new TreeMap<>();
+            entries.forEach((categoryId, count) -> {
+                long value = ((Number) count).longValue();
+                if (value > 0) {
+                    counts.put(Long.valueOf(categoryId.toString()), value);
+                }
+            });
+            return counts;
+        } catch (DataAccessException e) {
+            logger.warn("Cannot read facet counts from Redis: {}", e.getMessage());
+            return countCategories();
+        }
+    }
+
+    // All the counters a transaction touched, in one script call
+    @Override
+    public void adjustCounts(Map<Long, Long> deltas) {
+        if (useRedisCache == false || deltas.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        deltas.forEach((categoryId, delta) -> {
+            if (delta != 0) {
+                args.add(categoryId.toString());
+                args.add(delta.toString());
+            }
+        });
+        if (args.isEmpty()) {
+            return;
+        }
+        try {
+            Long applied = redisTemplate.execute(ADJUST_COUNTS_SCRIPT, RedisSerializer.string(),
+                    new GenericToStringSerializer<>(Long.class), List.of(CATEGORY_COUNTS_KEY), args.toArray());
+            if (applied == null || applied == 0) {
+                logger.debug("Facet counts are missing, they are rebuilt on the next read");
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Cannot update facet counts: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void rebuildCounts() {
+        if (useRedisCache == false) {
+            return;
+        }
+        try {
+            Map<Long, Long> counts = saveCounts(countCategories());
+            logger.info("Facet counts rebuilt for {} categories", counts.size());
+        } catch (Exception e) {
+            logger.warn("Cannot rebuild facet counts: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("product-facet-rebuild").start(this::rebuildCounts);
+    }
+
+    private Map<Long, Long> countCategories() {
+        Map<Long, Long> counts = new TreeMap<>();
+        for (Object[] row : productRepository.countProductsByCategory()) {
+            if (row[0] != null) {
+                counts.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        return counts;
+    }
+
+    // Written under a temporary key and renamed, so readers never see a half-written hash
+    private Map<Long, Long> saveCounts(Map<Long, Long> counts) {
+        if (counts.isEmpty()) {
+            return counts;
+        }
+        Map<String, Object> entries = new HashMap<>();
+        counts.forEach((categoryId, count) -> entries.put(categoryId.toString(), count));
+        String rebuildingKey = CATEGORY_COUNTS_KEY + ":rebuilding";
+        redisTemplate.opsForHash().putAll(rebuildingKey, entries);
+        redisTemplate.rename(rebuildingKey, CATEGORY_COUNTS_KEY);
+        return counts;
+    }
+}
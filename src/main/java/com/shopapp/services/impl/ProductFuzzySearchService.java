@@ -0,0 +1,293 @@
+package com.shopapp.services.impl;
+
+import com.shopapp.models.Product;
+import com.shopapp.repositories.ProductRepository;
+import com.shopapp.services.interfaces.IProductFuzzySearchService;
+import com.shopapp.utils.TextNormalizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/*
+ * Trigram index over the normalized words of product names and descriptions. A query collects the
+ * products sharing enough trigrams with the keywords, then verifies each candidate with a bounded
+ * edit distance, so a typo such as "iphnoe" still finds "iphone" without a table scan.
+ */
+@Service
+public class ProductFuzzySearchService implements IProductFuzzySearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFuzzySearchService.class);
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+    private static final char WORD_BOUNDARY = '$';
+
+    private final ProductRepository productRepository;
+    private volatile Index index = new Index();
+    private final Lock changeLock = new ReentrantLock();
+    // Recorded during rebuildIndex so the index it builds does not miss them
+    private List<Consumer<Index>> pendingChanges = null;
+    private volatile boolean ready = false;
+
+    private static class Index {
+        final Map<String, Set<Long>> idsByTrigram = new ConcurrentHashMap<>();
+        final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    }
+
+    private record Entry(String[] words, Set<String> trigrams, Long categoryId, float price) {
+    }
+
+    private record Match(Long productId, int distance) {
+    }
+
+    public ProductFuzzySearchService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Page<Long> searchProductIds(String keyword, Long categoryId,
+                                       Float minPrice, Float maxPrice, Pageable pageable) {
+        String[] tokens = splitWords(TextNormalizer.normalize(keyword));
+        if (tokens.length == 0) {
+            return Page.empty(pageable);
+        }
+        Index current = index;
+        // Every edit changes at most 3 trigrams of a word (and a prefix misses the closing one),
+        // so candidates sharing fewer trigrams cannot be a match
+        Map<Long, Integer> sharedTrigrams = new HashMap<>();
+        int requiredTrigrams = 0;
+        for (String token : tokens) {
+            Set<String> trigrams = getTrigrams(token);
+            requiredTrigrams += Math.max(0, trigrams.size() - 1 - 3 * getMaximumDistance(token));
+            for (String trigram : trigrams) {
+                for (Long productId : current.idsByTrigram.getOrDefault(trigram, Set.of())) {
+                    sharedTrigrams.merge(productId, 1, Integer::sum);
+                }
+            }
+        }
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Long, Integer> candidate : sharedTrigrams.entrySet()) {
+            if (candidate.getValue() < Math.max(1, requiredTrigrams)) {
+                continue;
+            }
+            Entry entry = current.entries.get(candidate.getKey());
+            if (entry == null || !matchesFilters(entry, categoryId, minPrice, maxPrice)) {
+                continue;
+            }
+            int distance = getDistance(tokens, entry.words());
+            if (distance >= 0) {
+                matches.add(new Match(candidate.getKey(), distance));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::productId));
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        List<Long> ids = matches.subList(from, to).stream().map(Match::productId).toList();
+        return new PageImpl<>(ids, pageable, matches.size());
+    }
+
+    @Override
+    public void upsertProduct(Product product) {
+        apply(target -> upsertProduct(target, product));
+    }
+
+    @Override
+    public void removeProduct(Long productId) {
+        apply(target -> removeProduct(target, productId));
+    }
+
+    private void apply(Consumer<Index> change) {
+        changeLock.lock();
+        try {
+            change.accept(index);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void rebuildIndex() {
+        long startTime = System.currentTimeMillis();
+        changeLock.lock();
+        pendingChanges = new ArrayList<>();
+        changeLock.unlock();
+        try {
+            // Typo searches keep reading the current index until the new one is complete
+            Index building = new Index();
+            long lastId = 0L;
+            List<Product> products;
+            do {
+                products = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+                for (Product product : products) {
+                    upsertProduct(building, product);
+                    lastId = product.getId();
+                }
+            } while (products.size() == REBUILD_BATCH_SIZE);
+            changeLock.lock();
+            try {
+                pendingChanges.forEach(change -> change.accept(building));
+                index = building;
+            } finally {
+                changeLock.unlock();
+            }
+            ready = true;
+            logger.info("Fuzzy product index rebuilt with {} products and {} trigrams in {}ms",
+                    building.entries.size(), building.idsByTrigram.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            // Fuzzy searches fall back to the regular search until a rebuild succeeds
+            logger.warn("Cannot rebuild fuzzy product index: {}", e.getMessage());
+        } finally {
+            changeLock.lock();
+            pendingChanges = null;
+            changeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("product-fuzzy-index-rebuild").start(this::rebuildIndex);
+    }
+
+    private void upsertProduct(Index target, Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        removeProduct(target, product.getId());
+        String[] words = splitWords(TextNormalizer.normalize(product.getName())
+                + " " + TextNormalizer.normalize(product.getDescription()));
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (String word : words) {
+            trigrams.addAll(getTrigrams(word));
+        }
+        Entry entry = new Entry(words, trigrams,
+                product.getCategory() == null ? null : product.getCategory().getId(),
+                product.getPrice() == null ? 0f : product.getPrice());
+        target.entries.put(product.getId(), entry);
+        for (String trigram : trigrams) {
+            target.idsByTrigram.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(product.getId());
+        }
+    }
+
+    private void removeProduct(Index target, Long productId) {
+        Entry entry = target.entries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        for (String trigram : entry.trigrams()) {
+            Set<Long> ids = target.idsByTrigram.get(trigram);
+            if (ids != null) {
+                ids.remove(productId);
+            }
+        }
+    }
+
+    private boolean matchesFilters(Entry entry, Long categoryId, Float minPrice, Float maxPrice) {
+        return (categoryId == null || categoryId == 0 || categoryId.equals(entry.categoryId()))
+                && (minPrice == null || entry.price() >= minPrice)
+                && (maxPrice == null || entry.price() <= maxPrice);
+    }
+
+    // Sum over the tokens of the closest word's distance (a word starting with the token counts as 0), -1 if a token has no match
+    private int getDistance(String[] tokens, String[] words) {
+        int total = 0;
+        for (String token : tokens) {
+            int maximumDistance = getMaximumDistance(token);
+            int best = -1;
+            for (String word : words) {
+                int distance = word.startsWith(token) ? 0 : getBoundedDistance(token, word, maximumDistance);
+                if (distance >= 0 && (best < 0 || distance < best)) {
+                    best = distance;
+                    if (best == 0) {
+                        break;
+                    }
+                }
+            }
+            if (best < 0) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // Short words must match exactly, otherwise one typo per 4 characters, at most 2
+    private int getMaximumDistance(String token) {
+        if (token.length() <= 3) {
+            return 0;
+        }
+        return token.length() <= 7 ? 1 : 2;
+    }
+
+    // Edit distance counting a swap of adjacent letters as one typo, or -1 once it exceeds maximumDistance
+    private int getBoundedDistance(String source, String target, int maximumDistance) {
+        if (Math.abs(source.length() - target.length()) > maximumDistance) {
+            return -1;
+        }
+        int[] beforePrevious = new int[target.length() + 1];
+        int[] previous = new int[target.length() + 1];
+        int[] current = new int[target.length() + 1];
+        for (int j = 0; j <= target.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= source.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= target.length(); j++) {
+                int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && source.charAt(i - 1) == target.charAt(j - 2)
+                        && source.charAt(i - 2) == target.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maximumDistance) {
+                return -1;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        int distance = previous[target.length()];
+        return distance <= maximumDistance ? distance : -1;
+    }
+
+    private Set<String> getTrigrams(String word) {
+        String padded = WORD_BOUNDARY + word + WORD_BOUNDARY;
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private String[] splitWords(String text) {
+        return text.isBlank() ? new String[0] : text.split(" ");
+    }
+}
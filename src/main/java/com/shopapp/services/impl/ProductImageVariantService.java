@@ -0,0 +1,242 @@
+package com.shopapp.services.impl;
+
+import com.shopapp.models.Product;
+import com.shopapp.models.ProductImage;
+import com.shopapp.repositories.ProductImageRepository;
+import com.shopapp.services.interfaces.IProductImageVariantService;
+import com.shopapp.services.interfaces.IProductInvalidationService;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+
+/*
+ * Resizes uploaded product images in the background so listings can load a 200px tile instead
+ * of the original. Uploads add image ids to a bounded queue read by a few worker threads; when
+ * the queue is full the image keeps only its original until the next startup picks it up.
+ */
+@Service
+public class ProductImageVariantService implements IProductImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageVariantService.class);
+    private static final Path UPLOAD_DIR = Paths.get(ProductImage.UPLOAD_DIR);
+
+    private final ProductImageRepository productImageRepository;
+    private final IProductInvalidationService productInvalidationService;
+    private final List<Integer> widths;
+    private final float jpegQuality;
+    private final int workers;
+    private final BlockingQueue<Long> queue;
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    public ProductImageVariantService(
+            ProductImageRepository productImageRepository,
+            IProductInvalidationService productInvalidationService,
+            @Value("${product-image-variants.widths}") List<Integer> widths,
+            @Value("${product-image-variants.jpeg-quality}") float jpegQuality,
+            @Value("${product-image-variants.workers}") int workers,
+            @Value("${product-image-variants.queue-capacity}") int queueCapacity) {
+        this.productImageRepository = productImageRepository;
+        this.productInvalidationService = productInvalidationService;
+        this.widths = widths.stream().sorted().distinct().toList();
+        this.jpegQuality = jpegQuality;
+        this.workers = workers;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public int submit(List<ProductImage> productImages) {
+        int accepted = 0;
+        for (ProductImage productImage : productImages) {
+            if (!queue.offer(productImage.getId())) {
+                logger.warn("Image variant queue is full, product image {} keeps its original only",
+                        productImage.getId());
+                break;
+            }
+            accepted++;
+        }
+        return accepted;
+    }
+
+    @Override
+    public void generateVariants(Long productImageId) {
+        ProductImage productImage = productImageRepository.findById(productImageId).orElse(null);
+        if (productImage == null || productImage.getVariantUrls() != null) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        Map<Integer, String> variants;
+        try {
+            variants = writeVariants(productImage.getImageUrl());
+        } catch (IOException | RuntimeException e) {
+            // Marked as having no variants either way, so a broken file is not retried on every startup
+            logger.warn("Cannot resize product image {}: {}", productImageId, e.getMessage());
+            variants = Map.of();
+        }
+        String variantUrls = variants.isEmpty()
+                ? ProductImage.NO_VARIANTS
+                : variants.entrySet().stream()
+                        .map(entry -> entry.getKey() + ":" + entry.getValue())
+                        .collect(Collectors.joining(","));
+        if (productImageRepository.updateVariantUrls(productImageId, variantUrls) == 0) {
+            return;
+        }
+        // A bulk update skips ProductImageListener, so the cached product is evicted here for the variants to show up
+        Product product = productImage.getProduct();
+        if (product != null) {
+            productInvalidationService.productChanged(product.getId(),
+                    product.getCategory() == null ? Set.of() : Set.of(product.getCategory().getId()));
+        }
+        logger.debug("Product image {} resized to {} in {}ms",
+                productImageId, variants.keySet(), System.currentTimeMillis() - startTime);
+    }
+
+    // Workers only start once the application is ready; earlier submissions wait in the queue
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        for (int i = 0; i < workers; i++) {
+            workerThreads.add(Thread.ofVirtual().name("product-image-variants-" + i).start(this::work));
+        }
+        try {
+            List<Long> ids = productImageRepository.findIdsWithoutVariants(
+                    Limit.of(queue.remainingCapacity()));
+            ids.forEach(queue::offer);
+            if (!ids.isEmpty()) {
+                logger.info("Queued {} product images without variants", ids.size());
+            }
+        } catch (Exception e) {
+            logger.warn("Cannot queue product images without variants: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        workerThreads.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Long productImageId;
+            try {
+                productImageId = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                generateVariants(productImageId);
+            } catch (Exception e) {
+                logger.warn("Cannot generate variants of product image {}: {}", productImageId, e.getMessage());
+            }
+        }
+    }
+
+    // Returns width -> file name of each copy written, only for widths below the original's
+    private Map<Integer, String> writeVariants(String imageUrl) throws IOException {
+        Path original = UPLOAD_DIR.resolve(imageUrl);
+        if (!Files.isRegularFile(original)) {
+            throw new IOException("File not found: " + original);
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + imageUrl);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                List<Integer> targetWidths = widths.stream().filter(width -> width < sourceWidth).toList();
+                if (targetWidths.isEmpty()) {
+                    return Map.of();
+                }
+                // JPEG stays JPEG; everything else (PNG, GIF, BMP) becomes PNG so transparency survives
+                boolean jpeg = "jpeg".equalsIgnoreCase(reader.getFormatName());
+                // Skipping pixels while decoding keeps a 10MB photo from being inflated to full size
+                // in memory; at least twice the largest width is kept for a smooth final scale
+                int subsampling = Math.max(1, sourceWidth / (targetWidths.getLast() * 2));
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, readParam);
+
+                Map<Integer, String> variants = new TreeMap<>();
+                // Largest first, each copy scaled from the previous one rather than from the original
+                for (int width : targetWidths.reversed()) {
+                    image = scale(image, width, jpeg);
+                    String filename = variantFilename(imageUrl, width, jpeg);
+                    write(image, UPLOAD_DIR.resolve(filename), jpeg);
+                    variants.put(width, filename);
+                }
+                return variants;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int width, boolean jpeg) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        BufferedImage target = new BufferedImage(width, height,
+                jpeg ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void write(BufferedImage image, Path destination, boolean jpeg) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(jpeg ? "jpeg" : "png").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(destination.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            if (jpeg) {
+                writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                writeParam.setCompressionQuality(jpegQuality);
+            }
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // w200_<uuid>_photo.jpg next to the original, with the extension of the format written
+    private String variantFilename(String imageUrl, int width, boolean jpeg) {
+        int dot = imageUrl.lastIndexOf('.');
+        String baseName = dot > 0 ? imageUrl.substring(0, dot) : imageUrl;
+        return "w" + width + "_" + baseName + (jpeg ? ".jpg" : ".png");
+    }
+}
@@ -0,0 +1,295 @@
+package com.shopapp.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopapp.dtos.ProductDTO;
+import com.shopapp.exceptions.InvalidParamException;
+import com.shopapp.models.Category;
+import com.shopapp.repositories.CategoryRepository;
+import com.shopapp.responses.ProductImportResponse;
+import com.shopapp.services.interfaces.IProductFacetService;
+import com.shopapp.services.interfaces.IProductFuzzySearchService;
+import com.shopapp.services.interfaces.IProductImportService;
+import com.shopapp.services.interfaces.IProductRedisService;
+import com.shopapp.services.interfaces.IProductSearchService;
+import com.shopapp.services.interfaces.IProductSnapshotService;
+import com.shopapp.services.interfaces.IProductSuggestService;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * Bulk import that bypasses JPA: rows are validated while the body is read and inserted with
+ * JDBC batches, so ProductListener never fires per row. Caches and in-memory indexes are
+ * invalidated once, after the last batch.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService implements IProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+    private static final int MAXIMUM_REPORTED_ERRORS = 1_000;
+    private static final List<String> CSV_COLUMNS = List.of("name", "price", "category_id", "description", "thumbnail");
+    private static final String INSERT_PRODUCT_SQL = "INSERT INTO products " +
+            "(name, price, thumbnail, description, created_at, updated_at, category_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final IProductRedisService productRedisService;
+    private final IProductSearchService productSearchService;
+    private final IProductSnapshotService productSnapshotService;
+    private final IProductSuggestService productSuggestService;
+    private final IProductFuzzySearchService productFuzzySearchService;
+    private final IProductFacetService productFacetService;
+    @Value("${product-import.batch-size}")
+    private int batchSize;
+
+    private record Row(long line, ProductDTO product) {
+    }
+
+    @Override
+    public ProductImportResponse importProducts(InputStream inputStream, boolean csv)
+            throws IOException, InvalidParamException {
+        long startTime = System.currentTimeMillis();
+        // Categories are few: one query instead of one lookup per row
+        Set<Long> categoryIds = categoryRepository.findAll().stream()
+                .map(Category::getId)
+                .collect(Collectors.toSet());
+        Set<String> names = new HashSet<>();
+        ProductImportResponse response = new ProductImportResponse();
+        List<Row> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columns = csv ? readCsvHeader(reader.readLine()) : Map.of();
+            long line = csv ? 1 : 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    ProductDTO product = csv ? parseCsvRow(text, columns) : objectMapper.readValue(text, ProductDTO.class);
+                    validate(product, categoryIds, names);
+                    batch.add(new Row(line, product));
+                } catch (InvalidParamException e) {
+                    addError(response, line, e.getMessage());
+                } catch (JsonProcessingException e) {
+                    addError(response, line, "Invalid JSON: " + e.getOriginalMessage());
+                } catch (NumberFormatException e) {
+                    addError(response, line, "Invalid number: " + e.getMessage());
+                }
+                if (batch.size() >= batchSize) {
+                    insertBatch(batch, response);
+                    batch.clear();
+                }
+            }
+            insertBatch(batch, response);
+        } finally {
+            if (response.getImported() > 0) {
+                refreshCaches();
+            }
+        }
+        logger.info("Imported {} products ({} rejected) in {}ms",
+                response.getImported(), response.getFailed(), System.currentTimeMillis() - startTime);
+        return response;
+    }
+
+    private void validate(ProductDTO product, Set<Long> categoryIds, Set<String> names) throws InvalidParamException {
+        Set<ConstraintViolation<ProductDTO>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            throw new InvalidParamException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining(", ")));
+        }
+        if (product.getPrice() == null) {
+            throw new InvalidParamException("Price is required");
+        }
+        if (product.getCategoryId() == null || !categoryIds.contains(product.getCategoryId())) {
+            throw new InvalidParamException("Cannot find category with id: " + product.getCategoryId());
+        }
+        if (!names.add(product.getName())) {
+            throw new InvalidParamException("Duplicate product name in import: " + product.getName());
+        }
+    }
+
+    // One IN query per batch skips names that already exist, then the batch is sent in one round trip.
+    // Each batch is its own transaction: a failing row rolls the whole batch back, so its rows can be retried
+    private void insertBatch(List<Row> batch, ProductImportResponse response) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Row> rows = batch;
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try {
+            Set<String> existingNames = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                    "SELECT name FROM products WHERE name IN (:names)",
+                    new MapSqlParameterSource("names", batch.stream().map(row -> row.product().getName()).toList()),
+                    String.class));
+            rows = new ArrayList<>();
+            for (Row row : batch) {
+                if (existingNames.contains(row.product().getName())) {
+                    addError(response, row.line(), "Product name already exists: " + row.product().getName());
+                } else {
+                    rows.add(row);
+                }
+            }
+            List<Row> insertedRows = rows;
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, insertedRows, insertedRows.size(),
+                            (statement, row) -> setInsertParameters(statement, row, now)));
+            response.setImported(response.getImported() + rows.size());
+        } catch (DataAccessException e) {
+            // Nothing of the failed batch was committed; only its rows are retried, one statement each,
+            // so the offending rows get their own error and the others are still imported
+            logger.warn("Cannot insert import batch, retrying its {} rows one by one: {}", rows.size(), e.getMessage());
+            for (Row row : rows) {
+                try {
+                    jdbcTemplate.update(INSERT_PRODUCT_SQL, statement -> setInsertParameters(statement, row, now));
+                    response.setImported(response.getImported() + 1);
+                } catch (DataAccessException rowException) {
+                    addError(response, row.line(),
+                            "Cannot insert product: " + rowException.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void setInsertParameters(PreparedStatement statement, Row row, Timestamp now) throws SQLException {
+        ProductDTO product = row.product();
+        statement.setString(1, product.getName());
+        statement.setFloat(2, product.getPrice());
+        statement.setString(3, product.getThumbnail() == null ? "" : product.getThumbnail());
+        statement.setString(4, product.getDescription() == null ? "" : product.getDescription());
+        statement.setTimestamp(5, now);
+        statement.setTimestamp(6, now);
+        statement.setLong(7, product.getCategoryId());
+    }
+
+    private void addError(ProductImportResponse response, long line, String message) {
+        response.setFailed(response.getFailed() + 1);
+        if (response.getErrors().size() < MAXIMUM_REPORTED_ERRORS) {
+            response.getErrors().add(new ProductImportResponse.RowError(line, message));
+        }
+    }
+
+    // The rows never went through ProductListener: drop cached pages and rebuild the indexes in the background
+    private void refreshCaches() {
+        clearCache();
+        Thread.ofVirtual().name("product-import-reindex").start(() -> {
+            productSearchService.rebuildIndex();
+            productSnapshotService.rebuildSnapshot();
+            productSuggestService.rebuildSuggestions();
+            productFuzzySearchService.rebuildIndex();
+            productFacetService.rebuildCounts();
+            // Pages cached during the rebuild (by requests or the cache warmer) came from the old indexes
+            clearCache();
+        });
+    }
+
+    private void clearCache() {
+        try {
+            productRedisService.clear();
+        } catch (DataAccessException e) {
+            logger.warn("Cannot clear product cache after import: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Integer> readCsvHeader(String header) throws InvalidParamException {
+        if (header == null) {
+            throw new InvalidParamException("CSV header is required: " + String.join(",", CSV_COLUMNS));
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(), i);
+        }
+        for (String required : List.of("name", "price", "category_id")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidParamException("CSV header must contain " + required);
+            }
+        }
+        return columns;
+    }
+
+    private ProductDTO parseCsvRow(String line, Map<String, Integer> columns) throws InvalidParamException {
+        List<String> values = parseCsvLine(line);
+        String price = getCsvValue(values, columns, "price");
+        String categoryId = getCsvValue(values, columns, "category_id");
+        return ProductDTO.builder()
+                .name(getCsvValue(values, columns, "name"))
+                .price(price == null || price.isBlank() ? null : Float.valueOf(price.trim()))
+                .categoryId(categoryId == null || categoryId.isBlank() ? null : Long.valueOf(categoryId.trim()))
+                .description(getCsvValue(values, columns, "description"))
+                .thumbnail(getCsvValue(values, columns, "thumbnail"))
+                .build();
+    }
+
+    private String getCsvValue(List<String> values, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= values.size() ? null : values.get(index);
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes
+    private List<String> parseCsvLine(String line) throws InvalidParamException {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new InvalidParamException("Unterminated quoted field");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
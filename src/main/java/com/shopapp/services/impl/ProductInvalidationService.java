@@ -0,0 +1,198 @@
+package com.shopapp.services.impl;
+
+import com.shopapp.models.Category;
+import com.shopapp.models.Product;
+import com.shopapp.services.interfaces.IProductFacetService;
+import com.shopapp.services.interfaces.IProductFuzzySearchService;
+import com.shopapp.services.interfaces.IProductInvalidationService;
+import com.shopapp.services.interfaces.IProductRedisService;
+import com.shopapp.services.interfaces.IProductSearchService;
+import com.shopapp.services.interfaces.IProductSnapshotService;
+import com.shopapp.services.interfaces.IProductSuggestService;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+@Service
+@RequiredArgsConstructor
+public class ProductInvalidationService implements IProductInvalidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductInvalidationService.class);
+
+    private final IProductRedisService productRedisService;
+    private final IProductFacetService productFacetService;
+    private final IProductSearchService productSearchService;
+    private final IProductSnapshotService productSnapshotService;
+    private final IProductSuggestService productSuggestService;
+    private final IProductFuzzySearchService productFuzzySearchService;
+    private final ExecutorService dispatcher = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("product-invalidation-", 0).factory());
+
+    // Everything one transaction changed; a 1,000-row batch ends up as one eviction and one HINCRBY pipeline
+    private static final class Pending {
+        private final Set<Long> productIds = new LinkedHashSet<>();
+        private final Set<Long> categoryIds = new LinkedHashSet<>();
+        private final Map<Long, Long> categoryDeltas = new HashMap<>();
+        // Last flushed state per product; a product saved and then removed is only removed
+        private final Map<Long, Product> savedProducts = new LinkedHashMap<>();
+        private final Set<Long> removedProductIds = new LinkedHashSet<>();
+    }
+
+    @Override
+    public void productChanged(Long productId, Collection<Long> categoryIds) {
+        collect(pending -> {
+            if (productId != null) {
+                pending.productIds.add(productId);
+            }
+            pending.categoryIds.addAll(categoryIds);
+        });
+    }
+
+    @Override
+    public void productMoved(Long fromCategoryId, Long toCategoryId) {
+        if (Objects.equals(fromCategoryId, toCategoryId)) {
+            return;
+        }
+        collect(pending -> {
+            if (fromCategoryId != null) {
+                pending.categoryDeltas.merge(fromCategoryId, -1L, Long::sum);
+            }
+            if (toCategoryId != null) {
+                pending.categoryDeltas.merge(toCategoryId, 1L, Long::sum);
+            }
+        });
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        // A copy of the indexed fields: the entity may change again before the commit is applied
+        Product indexed = Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .description(product.getDescription())
+                .thumbnail(product.getThumbnail())
+                .category(product.getCategory() == null
+                        ? null
+                        : Category.builder().id(product.getCategory().getId()).build())
+                .build();
+        indexed.setCreatedAt(product.getCreatedAt());
+        indexed.setUpdatedAt(product.getUpdatedAt());
+        collect(pending -> {
+            pending.removedProductIds.remove(indexed.getId());
+            pending.savedProducts.put(indexed.getId(), indexed);
+        });
+    }
+
+    @Override
+    public void productRemoved(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        collect(pending -> {
+            pending.savedProducts.remove(productId);
+            pending.removedProductIds.add(productId);
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.close();
+    }
+
+    /*
+     * The first change of a transaction binds its Pending set and registers the synchronization
+     * that publishes it after commit. Entity listeners may fire while Hibernate flushes during the
+     * commit itself; Spring still runs synchronizations registered at that point.
+     */
+    private void collect(Consumer<Pending> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Pending pending = new Pending();
+            change.accept(pending);
+            dispatch(pending);
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending transactionPending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, transactionPending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(transactionPending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductInvalidationService.this);
+                }
+            });
+            pending = transactionPending;
+        }
+        change.accept(pending);
+    }
+
+    /*
+     * The in-memory indexes are updated on the committing thread, so that thread's next read sees its
+     * own change and two commits of the same product reach the indexes in commit order; Redis round
+     * trips happen on a virtual thread, so the writing request never waits for them.
+     */
+    private void dispatch(Pending pending) {
+        applyToIndexes(pending);
+        if (pending.productIds.isEmpty() && pending.categoryIds.isEmpty() && pending.categoryDeltas.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            try {
+                if (!pending.productIds.isEmpty() || !pending.categoryIds.isEmpty()) {
+                    productRedisService.evictProducts(pending.productIds, pending.categoryIds);
+                }
+                productFacetService.adjustCounts(pending.categoryDeltas);
+            } catch (Exception e) {
+                // Cached pages still expire with their TTL
+                logger.warn("Cannot publish product invalidation for {} products: {}",
+                        pending.productIds.size(), e.getMessage());
+            }
+        });
+    }
+
+    private void applyToIndexes(Pending pending) {
+        try {
+            for (Product product : pending.savedProducts.values()) {
+                productSearchService.indexProduct(product);
+                productSnapshotService.upsertProduct(product);
+                productSuggestService.upsertProduct(product);
+                productFuzzySearchService.upsertProduct(product);
+            }
+            for (Long productId : pending.removedProductIds) {
+                productSearchService.removeProduct(productId);
+                productSnapshotService.removeProduct(productId);
+                productSuggestService.removeProduct(productId);
+                productFuzzySearchService.removeProduct(productId);
+            }
+        } catch (Exception e) {
+            // The commit already happened; the indexes catch up with the next rebuild
+            logger.warn("Cannot update product indexes for {} products: {}",
+                    pending.savedProducts.size() + pending.removedProductIds.size(), e.getMessage());
+        }
+    }
+}
@@ -1,74 +1,788 @@
 package com.shopapp.services.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopapp.components.SingleFlight;
+import com.shopapp.events.ProductCacheEvictedEvent;
+import com.shopapp.responses.ProductListResponse;
 import com.shopapp.responses.ProductResponse;
 import com.shopapp.services.interfaces.IProductRedisService;
+import com.shopapp.utils.GzipUtils;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class ProductRedisService implements IProductRedisService {
+public class ProductRedisService implements IProductRedisService, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(ProductRedisService.class);
+    private static final int SCAN_BATCH_SIZE = 500;
+    private static final String INVALIDATION_CHANNEL = "product_cache_invalidation";
+    private static final String ALL_TAGS = "*";
+    private static final String DETAIL_FAMILY = "product_detail";
+    private static final String ALL_PRODUCTS_FAMILY = "all_products";
+    private static final String PRODUCTS_AFTER_FAMILY = "products_after";
+    // Keyword pages by last access time: free-text keys are capped, least recently used evicted first
+    private static final String SEARCH_PAGES_KEY = "product_search_pages";
+    private static final String TAGS_PATTERN = "product_tags:*";
+    private static final String EVICTING_MARKER = ":evicting:";
+    private static final List<String> KEY_PATTERNS = List.of("all_products:*", "products_after:*", "product_detail:*", TAGS_PATTERN, SEARCH_PAGES_KEY);
+    private static final String CATALOG_VERSION_KEY = "product_catalog_version";
+    private static final long UNKNOWN_VERSION = -1L;
+    private static final long LOCK_POLL_INTERVAL_MS = 50;
+    private static final String LEVEL_LOCAL = "local";
+    private static final String LEVEL_REDIS = "redis";
+    private static final DefaultRedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    // Set while callUnrecorded runs: background reads would otherwise inflate the hit ratio
+    private static final ThreadLocal<Boolean> UNRECORDED = ThreadLocal.withInitial(() -> false);
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, byte[]> redisBytesTemplate;
     private final ObjectMapper redisObjectMapper;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final SingleFlight singleFlight;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
     @Value("${spring.data.redis.use-redis-cache}")
     private boolean useRedisCache;
+    @Value("${spring.data.redis.local-cache.max-memory}")
+    private DataSize localCacheMaxMemory;
+    @Value("${spring.data.redis.local-cache.expire-after-write}")
+    private Duration localCacheExpireAfterWrite;
+    @Value("${spring.data.redis.load-lock.enabled}")
+    private boolean useLoadLock;
+    @Value("${spring.data.redis.load-lock.timeout}")
+    private Duration loadLockTimeout;
+    @Value("${spring.data.redis.compression.enabled}")
+    private boolean useCompression;
+    @Value("${spring.data.redis.compression.min-size}")
+    private DataSize compressionMinSize;
+    @Value("${spring.data.redis.ttl.all-products}")
+    private Duration allProductsTtl;
+    @Value("${spring.data.redis.ttl.products-after}")
+    private Duration productsAfterTtl;
+    @Value("${spring.data.redis.ttl.product-detail}")
+    private Duration productDetailTtl;
+    @Value("${spring.data.redis.ttl.jitter}")
+    private double ttlJitter;
+    @Value("${spring.data.redis.search-pages.max-entries}")
+    private long maxSearchPages;
+    @Value("${spring.data.redis.tag-prune-interval}")
+    private Duration tagPruneInterval;
+    private Thread tagPruner;
+
+    // L1: response bodies kept in-process, each remembering the tags it was cached under
+    private Cache<String, LocalEntry> localCache;
+
+    private record LocalEntry(byte[] body, Set<String> tags) {
+    }
+
+    /*
+     * Bumped in Redis on every eviction and pushed to the other nodes with the invalidation
+     * message, so ETag checks are answered from memory. Re-read from Redis once it is older
+     * than the L1 TTL in case a message was missed.
+     */
+    private final AtomicLong catalogVersion = new AtomicLong(UNKNOWN_VERSION);
+    private volatile long catalogVersionCheckedAt = 0L;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumWeight(localCacheMaxMemory.toBytes())
+                .weigher((String key, LocalEntry entry) -> entry.body().length)
+                .expireAfterWrite(localCacheExpireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "product_local_cache");
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startTagPruner() {
+        if (useRedisCache == false) {
+            return;
+        }
+        tagPruner = Thread.ofVirtual().name("product-tag-pruner").start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(tagPruneInterval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    pruneTags();
+                } catch (Exception e) {
+                    logger.warn("Cannot prune product cache tags: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stopTagPruner() {
+        if (tagPruner != null) {
+            tagPruner.interrupt();
+        }
+    }
 
     private String getKeyFrom(String keyword,
             Long categoryId,
+            Float minPrice,
+            Float maxPrice,
             PageRequest pageRequest) {
         int pageNumber = pageRequest.getPageNumber();
         int pageSize = pageRequest.getPageSize();
-        Sort sort = pageRequest.getSort();
-        @SuppressWarnings("null")
-        String sortDirection = sort.getOrderFor("id")
-                .getDirection() == Sort.Direction.ASC ? "asc" : "desc";
-        String key = String.format("all_products:%s:%d:%d:%d:%s",
-                keyword, categoryId, pageNumber, pageSize, sortDirection);
+        String key = String.format("all_products:%s:%d:%s:%d:%d:%s",
+                keyword, categoryId, getPriceRangeKey(minPrice, maxPrice),
+                pageNumber, pageSize, getSortKey(pageRequest.getSort()));
         return key;
     }
 
+    // Canonical form of the sort, e.g. "price.desc,id.desc"; unsorted pages are fuzzy searches ranked by relevance
+    private String getSortKey(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "relevance";
+        }
+        return sort.stream()
+                .map(order -> order.getProperty() + "." + order.getDirection().name().toLowerCase())
+                .collect(Collectors.joining(","));
+    }
+
+    // Cursor pages live in their own key family so they never collide with offset pages
+    private String getKeyFrom(String keyword,
+            Long categoryId,
+            Float minPrice,
+            Float maxPrice,
+            long afterId,
+            int limit) {
+        return String.format("products_after:%s:%d:%s:%d:%d",
+                keyword, categoryId, getPriceRangeKey(minPrice, maxPrice), afterId, limit);
+    }
+
+    // "min-max" with an empty side when unbounded, so 10 and 10.0 map to the same key
+    private String getPriceRangeKey(Float minPrice, Float maxPrice) {
+        return Objects.toString(minPrice, "") + "-" + Objects.toString(maxPrice, "");
+    }
+
+    private String getDetailKey(Long productId) {
+        return String.format("product_detail:%d", productId);
+    }
+
+    // Tag sets hold the names of the cached pages that depend on a category or a product
+    private String getCategoryTag(Long categoryId) {
+        return String.format("product_tags:category:%d", categoryId == null ? 0L : categoryId);
+    }
+
+    private String getProductTag(Long productId) {
+        return String.format("product_tags:product:%d", productId);
+    }
+
+    // "category", "product", or "all" for a full clear
+    private String getTagScope(String tag) {
+        if (ALL_TAGS.equals(tag)) {
+            return "all";
+        }
+        String[] parts = tag.split(":");
+        return parts.length > 1 ? parts[1] : tag;
+    }
+
+    // Metrics are tagged by key family: all_products, products_after or product_detail
+    private String getFamily(String key) {
+        int separator = key.indexOf(':');
+        return separator < 0 ? key : key.substring(0, separator);
+    }
+
+    private void recordHits(String family, String level, int count) {
+        if (UNRECORDED.get()) {
+            return;
+        }
+        meterRegistry.counter("product.cache.hits", "family", family, "level", level).increment(count);
+    }
+
+    private void recordMisses(String family, int count) {
+        if (UNRECORDED.get()) {
+            return;
+        }
+        meterRegistry.counter("product.cache.misses", "family", family).increment(count);
+    }
+
+    // Time spent building a missing entry, i.e. what a hit saves
+    private Timer getLoadTimer(String family) {
+        return Timer.builder("product.cache.load")
+                .tag("family", family)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Serialized (after compression) size of the stored bodies, to size the local cache and Redis
+    private void recordSize(String family, int bytes) {
+        DistributionSummary.builder("product.cache.entry.size")
+                .baseUnit("bytes")
+                .tag("family", family)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return useRedisCache;
+    }
+
+    @Override
+    public <T> T callUnrecorded(Callable<T> task) throws Exception {
+        boolean outer = UNRECORDED.get();
+        UNRECORDED.set(true);
+        try {
+            return task.call();
+        } finally {
+            UNRECORDED.set(outer);
+        }
+    }
+
+    @Override
+    public byte[] getAllProducts(String keyword,
+            Long categoryId,
+            Float minPrice,
+            Float maxPrice,
+            PageRequest pageRequest,
+            Callable<ProductListResponse> loader) throws Exception {
+        // A page only ever depends on its category filter, and every eviction includes the
+        // changed product's categories, so the category tag is enough for the local copy
+        return getOrLoad(this.getKeyFrom(keyword, categoryId, minPrice, maxPrice, pageRequest),
+                Set.of(getCategoryTag(categoryId)), loader,
+                productListResponse -> getTags(categoryId, productListResponse.getProducts()));
+    }
+
     @Override
-    public List<ProductResponse> getAllProducts(String keyword,
+    public byte[] getProductsAfter(String keyword,
             Long categoryId,
-            PageRequest pageRequest) throws JsonProcessingException {
+            Float minPrice,
+            Float maxPrice,
+            long afterId,
+            int limit,
+            Callable<ProductListResponse> loader) throws Exception {
+        return getOrLoad(this.getKeyFrom(keyword, categoryId, minPrice, maxPrice, afterId, limit),
+                Set.of(getCategoryTag(categoryId)), loader,
+                productListResponse -> getTags(categoryId, productListResponse.getProducts()));
+    }
+
+    // One entry per product, tagged only with its own product tag so unrelated changes never evict it
+    @Override
+    public byte[] getProductDetail(Long productId, Callable<ProductResponse> loader) throws Exception {
+        Set<String> tags = Set.of(getProductTag(productId));
+        return getOrLoad(getDetailKey(productId), tags, loader, productResponse -> tags);
+    }
+
+    // L1 first, then one MGET for the rest, then one loader call (a single IN query) for what is left
+    @Override
+    public byte[] getProductDetails(List<Long> productIds,
+            Function<List<Long>, List<ProductResponse>> loader) throws Exception {
+        Map<Long, byte[]> bodies = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            LocalEntry localEntry = useRedisCache ? localCache.getIfPresent(getDetailKey(productId)) : null;
+            if (localEntry != null) {
+                bodies.put(productId, localEntry.body());
+                recordHits(DETAIL_FAMILY, LEVEL_LOCAL, 1);
+            } else {
+                missingIds.add(productId);
+            }
+        }
+        if (useRedisCache && !missingIds.isEmpty()) {
+            List<byte[]> cachedBodies = redisBytesTemplate.opsForValue()
+                    .multiGet(missingIds.stream().map(this::getDetailKey).toList());
+            List<Long> stillMissingIds = new ArrayList<>();
+            for (int i = 0; i < missingIds.size(); i++) {
+                Long productId = missingIds.get(i);
+                byte[] body = cachedBodies == null ? null : cachedBodies.get(i);
+                if (body != null) {
+                    bodies.put(productId, body);
+                    putLocal(getDetailKey(productId), body, Set.of(getProductTag(productId)));
+                    recordHits(DETAIL_FAMILY, LEVEL_REDIS, 1);
+                } else {
+                    stillMissingIds.add(productId);
+                }
+            }
+            missingIds = stillMissingIds;
+        }
+        if (!missingIds.isEmpty()) {
+            if (useRedisCache) {
+                recordMisses(DETAIL_FAMILY, missingIds.size());
+            }
+            Map<String, LocalEntry> entries = new LinkedHashMap<>();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            List<ProductResponse> productResponses = loader.apply(missingIds);
+            sample.stop(getLoadTimer(DETAIL_FAMILY));
+            for (ProductResponse productResponse : productResponses) {
+                byte[] body = serialize(productResponse);
+                recordSize(DETAIL_FAMILY, body.length);
+                bodies.put(productResponse.getId(), body);
+                entries.put(getDetailKey(productResponse.getId()),
+                        new LocalEntry(body, Set.of(getProductTag(productResponse.getId()))));
+            }
+            if (useRedisCache && !entries.isEmpty()) {
+                saveTagged(entries);
+                entries.forEach(localCache::put);
+            }
+        }
+        // Each entry already is a JSON object, so the array is assembled without re-serializing
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write('[');
+        boolean first = true;
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            byte[] body = bodies.get(productId);
+            if (body == null) {
+                continue;
+            }
+            if (!first) {
+                output.write(',');
+            }
+            output.writeBytes(GzipUtils.isGzipped(body) ? GzipUtils.gunzip(body) : body);
+            first = false;
+        }
+        output.write(']');
+        return output.toByteArray();
+    }
 
+    /*
+     * Cached body, or the loader's result; concurrent misses for the same key share one load.
+     * localTags are enough to evict the L1 copy of an entry read back from Redis, tagsOf gives
+     * the full set of tags a freshly loaded response is registered under.
+     */
+    private <T> byte[] getOrLoad(String key,
+            Set<String> localTags,
+            Callable<T> loader,
+            Function<T, Set<String>> tagsOf) throws Exception {
+        byte[] body = get(key, localTags, true);
+        if (body != null) {
+            return body;
+        }
+        String family = getFamily(key);
+        if (useRedisCache) {
+            recordMisses(family, 1);
+        }
+        // The miss is already counted, so finding the page another node loaded is not a hit as well
+        return singleFlight.execute(key, () -> loadOnce(key,
+                () -> get(key, localTags, false),
+                () -> {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    T response = loader.call();
+                    sample.stop(getLoadTimer(family));
+                    return save(key, tagsOf.apply(response), response);
+                }));
+    }
+
+    private byte[] get(String key, Set<String> localTags, boolean recordHit) {
         if (useRedisCache == false) {
             return null;
         }
-        
-        String key = this.getKeyFrom(keyword, categoryId, pageRequest);
-        String json = (String) redisTemplate.opsForValue().get(key);
-        List<ProductResponse> productResponses = json != null
-                ? redisObjectMapper.readValue(json, new TypeReference<List<ProductResponse>>() {
-                })
-                : null;
-        return productResponses;
+        LocalEntry localEntry = localCache.getIfPresent(key);
+        if (localEntry != null) {
+            if (recordHit) {
+                recordHits(getFamily(key), LEVEL_LOCAL, 1);
+            }
+            return localEntry.body();
+        }
+        byte[] body = redisBytesTemplate.opsForValue().get(key);
+        if (body != null) {
+            putLocal(key, body, localTags);
+            if (recordHit) {
+                recordHits(getFamily(key), LEVEL_REDIS, 1);
+            }
+            if (isSearchPage(key)) {
+                // L1 hits are not recorded, so the access time is at most one local TTL old
+                redisTemplate.opsForZSet().add(SEARCH_PAGES_KEY, key, System.currentTimeMillis());
+            }
+        }
+        return body;
     }
 
-    @SuppressWarnings({ "deprecation", "null" })
+    // Serialize once: the stored bytes are exactly what is written to the HTTP response
+    private byte[] save(String key, Set<String> tags, Object response)
+            throws JsonProcessingException {
+        byte[] body = serialize(response);
+        recordSize(getFamily(key), body.length);
+        if (useRedisCache) {
+            saveTagged(Map.of(key, new LocalEntry(body, tags)));
+            putLocal(key, body, tags);
+            if (isSearchPage(key)) {
+                trimSearchPages();
+            }
+        }
+        return body;
+    }
+
+    private byte[] serialize(Object response) throws JsonProcessingException {
+        byte[] body = redisObjectMapper.writeValueAsBytes(response);
+        if (useCompression && body.length >= compressionMinSize.toBytes()) {
+            body = GzipUtils.gzip(body);
+        }
+        return body;
+    }
+
+    /*
+     * Cross-node part of the single flight: the node holding the short-lived lock for the key
+     * loads it, the others poll the cache until it shows up (or the lock times out).
+     */
+    private <T> T loadOnce(String key, Callable<T> cachedReader, Callable<T> loader) throws Exception {
+        if (!useRedisCache || !useLoadLock) {
+            return loader.call();
+        }
+        String lockKey = "product_locks:" + key;
+        String token = UUID.randomUUID().toString();
+        Boolean acquired;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(lockKey, token, loadLockTimeout);
+        } catch (DataAccessException e) {
+            return loader.call();
+        }
+        if (Boolean.TRUE.equals(acquired)) {
+            try {
+                return loader.call();
+            } finally {
+                redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), token);
+            }
+        }
+        long deadline = System.currentTimeMillis() + loadLockTimeout.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(LOCK_POLL_INTERVAL_MS);
+            T cached = cachedReader.call();
+            if (cached != null) {
+                return cached;
+            }
+        }
+        logger.warn("Timed out waiting for another node to load {}", key);
+        return loader.call();
+    }
+
+    @Override
+    public long getCatalogVersion() {
+        if (useRedisCache == false) {
+            return UNKNOWN_VERSION;
+        }
+        long now = System.currentTimeMillis();
+        if (catalogVersion.get() == UNKNOWN_VERSION
+                || now - catalogVersionCheckedAt > localCacheExpireAfterWrite.toMillis()) {
+            try {
+                Object version = redisTemplate.opsForValue().get(CATALOG_VERSION_KEY);
+                updateCatalogVersion(version instanceof Number number ? number.longValue() : 0L);
+                catalogVersionCheckedAt = now;
+            } catch (DataAccessException e) {
+                // Without a trustworthy version no ETag is handed out
+                return UNKNOWN_VERSION;
+            }
+        }
+        return catalogVersion.get();
+    }
+
+    private void updateCatalogVersion(long version) {
+        catalogVersion.accumulateAndGet(version, Math::max);
+    }
+
+    // Remove every cached catalog page, but only our own keys and without blocking Redis
     @Override
     public void clear() {
-        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        for (String pattern : KEY_PATTERNS) {
+            ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH_SIZE).build();
+            List<String> batch = new ArrayList<>();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= SCAN_BATCH_SIZE) {
+                        redisTemplate.unlink(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                redisTemplate.unlink(batch);
+            }
+        }
+        publishInvalidation(Set.of(ALL_TAGS));
     }
 
     @Override
-    // save to Redis
-    public void saveAllProducts(List<ProductResponse> productResponses,
-            String keyword,
-            Long categoryId,
-            PageRequest pageRequest) throws JsonProcessingException {
-        String key = this.getKeyFrom(keyword, categoryId, pageRequest);
-        String json = redisObjectMapper.writeValueAsString(productResponses);
-        redisTemplate.opsForValue().set(key, json);
+    public void evictProducts(Collection<Long> productIds, Collection<Long> categoryIds) {
+        // Pages filtered by the products' (old and new) categories plus the unfiltered pages can change
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(getCategoryTag(0L));
+        for (Long categoryId : categoryIds) {
+            tags.add(getCategoryTag(categoryId));
+        }
+        for (Long productId : productIds) {
+            tags.add(getProductTag(productId));
+        }
+        for (String tag : tags) {
+            evictTag(tag);
+        }
+        publishInvalidation(tags);
+    }
+
+    // Every node (this one included) drops its L1 entries carrying one of the tags
+    private void publishInvalidation(Set<String> tags) {
+        for (String tag : tags) {
+            meterRegistry.counter("product.cache.invalidations", "scope", getTagScope(tag)).increment();
+        }
+        evictLocal(tags);
+        Long version = redisTemplate.opsForValue().increment(CATALOG_VERSION_KEY);
+        if (version != null) {
+            updateCatalogVersion(version);
+        }
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                Map.of("version", version == null ? UNKNOWN_VERSION : version,
+                        "tags", new ArrayList<>(tags)));
+        // Lets the cache warmer rebuild the hot pages; only the evicting node reacts, not the subscribers
+        eventPublisher.publishEvent(new ProductCacheEvictedEvent(tags));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object invalidation = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (invalidation instanceof Map<?, ?> map) {
+            if (map.get("version") instanceof Number version) {
+                updateCatalogVersion(version.longValue());
+            }
+            if (map.get("tags") instanceof Collection<?> tags) {
+                Set<String> tagSet = new HashSet<>();
+                tags.forEach(tag -> tagSet.add(String.valueOf(tag)));
+                evictLocal(tagSet);
+            }
+        }
+    }
+
+    private void evictLocal(Set<String> tags) {
+        if (tags.contains(ALL_TAGS)) {
+            localCache.invalidateAll();
+            return;
+        }
+        localCache.asMap().values().removeIf(entry -> entry.tags().stream().anyMatch(tags::contains));
+    }
+
+    private void putLocal(String key, byte[] body, Set<String> tags) {
+        localCache.put(key, new LocalEntry(body, tags));
+    }
+
+    private void evictTag(String tag) {
+        // Move the tag aside first: pages cached while we evict are tagged into a fresh set
+        String evictingTag = tag + EVICTING_MARKER + UUID.randomUUID();
+        try {
+            redisTemplate.rename(tag, evictingTag);
+        } catch (DataAccessException e) {
+            logger.debug("Nothing cached under {}", tag);
+            return;
+        }
+        ScanOptions options = ScanOptions.scanOptions().count(SCAN_BATCH_SIZE).build();
+        List<String> batch = new ArrayList<>();
+        try (Cursor<Object> cursor = redisTemplate.opsForSet().scan(evictingTag, options)) {
+            while (cursor.hasNext()) {
+                batch.add((String) cursor.next());
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    redisTemplate.unlink(batch);
+                    batch.clear();
+                }
+            }
+        }
+        batch.add(evictingTag);
+        redisTemplate.unlink(batch);
+    }
+
+    /*
+     * A tag set only loses members when its tag is evicted, so under a hot category or product
+     * the names of pages that expired or were trimmed from the search-page registry pile up.
+     * Removes the members whose key no longer exists.
+     */
+    private void pruneTags() {
+        ScanOptions options = ScanOptions.scanOptions().match(TAGS_PATTERN).count(SCAN_BATCH_SIZE).build();
+        long removed = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String tag = cursor.next();
+                // Being evicted right now; the set is deleted once that finishes
+                if (!tag.contains(EVICTING_MARKER)) {
+                    removed += pruneTag(tag);
+                }
+            }
+        }
+        if (removed > 0) {
+            meterRegistry.counter("product.cache.tags.pruned").increment(removed);
+        }
+    }
+
+    private long pruneTag(String tag) {
+        ScanOptions options = ScanOptions.scanOptions().count(SCAN_BATCH_SIZE).build();
+        long removed = 0;
+        List<String> batch = new ArrayList<>();
+        try (Cursor<Object> cursor = redisTemplate.opsForSet().scan(tag, options)) {
+            while (cursor.hasNext()) {
+                batch.add((String) cursor.next());
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    removed += removeMissingKeys(tag, batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            removed += removeMissingKeys(tag, batch);
+        }
+        return removed;
+    }
+
+    // One pipelined EXISTS per member, then a single SREM of those that are gone
+    private long removeMissingKeys(String tag, List<String> keys) {
+        RedisSerializer<String> keySerializer = RedisSerializer.string();
+        List<Object> exists = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.keyCommands().exists(keySerializer.serialize(key)));
+            return null;
+        });
+        Object[] missing = IntStream.range(0, keys.size())
+                .filter(i -> !Boolean.TRUE.equals(exists.get(i)))
+                .mapToObj(keys::get)
+                .toArray();
+        if (missing.length == 0) {
+            return 0;
+        }
+        Long removed = redisTemplate.opsForSet().remove(tag, missing);
+        return removed == null ? 0 : removed;
+    }
+
+    // Family TTL stretched by a random share of up to ttlJitter, so pages cached together do not expire together
+    private Duration getTtl(String key) {
+        Duration ttl = switch (getFamily(key)) {
+            case ALL_PRODUCTS_FAMILY -> allProductsTtl;
+            case PRODUCTS_AFTER_FAMILY -> productsAfterTtl;
+            default -> productDetailTtl;
+        };
+        long jitterMs = (long) (ttl.toMillis() * ttlJitter * ThreadLocalRandom.current().nextDouble());
+        return ttl.plusMillis(jitterMs);
+    }
+
+    private Duration getMaximumTtl() {
+        Duration ttl = allProductsTtl;
+        ttl = ttl.compareTo(productsAfterTtl) < 0 ? productsAfterTtl : ttl;
+        return ttl.compareTo(productDetailTtl) < 0 ? productDetailTtl : ttl;
+    }
+
+    private Duration getSearchPageTtl() {
+        return allProductsTtl.compareTo(productsAfterTtl) < 0 ? productsAfterTtl : allProductsTtl;
+    }
+
+    // Listing pages for a free-text keyword; their number is only bounded by what users type
+    private boolean isSearchPage(String key) {
+        return (key.startsWith(ALL_PRODUCTS_FAMILY + ":") || key.startsWith(PRODUCTS_AFTER_FAMILY + ":"))
+                && !key.startsWith(ALL_PRODUCTS_FAMILY + "::")
+                && !key.startsWith(PRODUCTS_AFTER_FAMILY + "::");
+    }
+
+    /*
+     * Forgets registry entries whose page has expired anyway, then evicts the least recently
+     * used search pages beyond spring.data.redis.search-pages.max-entries
+     */
+    private void trimSearchPages() {
+        // A page expires its (jittered) TTL after being written, which is no later than its last access
+        long expiredBefore = System.currentTimeMillis()
+                - (long) (getSearchPageTtl().toMillis() * (1 + ttlJitter));
+        redisTemplate.opsForZSet().removeRangeByScore(SEARCH_PAGES_KEY, 0, expiredBefore);
+        Long size = redisTemplate.opsForZSet().zCard(SEARCH_PAGES_KEY);
+        if (size == null || size <= maxSearchPages) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<Object>> evicted =
+                redisTemplate.opsForZSet().popMin(SEARCH_PAGES_KEY, size - maxSearchPages);
+        if (evicted == null || evicted.isEmpty()) {
+            return;
+        }
+        List<String> keys = evicted.stream().map(tuple -> String.valueOf(tuple.getValue())).toList();
+        redisTemplate.unlink(keys);
+        meterRegistry.counter("product.cache.search_pages.evicted").increment(keys.size());
+        // The L1 copies are short-lived and were never counted, so they are left to expire
+    }
+
+    private Set<String> getTags(Long categoryId, List<ProductResponse> productResponses) {
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(getCategoryTag(categoryId));
+        for (ProductResponse productResponse : productResponses) {
+            tags.add(getProductTag(productResponse.getId()));
+        }
+        return tags;
+    }
+
+    // Store the bodies and register them under their tags in one pipelined round trip
+    @SuppressWarnings("unchecked")
+    private void saveTagged(Map<String, LocalEntry> entries) {
+        RedisSerializer<String> keySerializer = RedisSerializer.string();
+        RedisSerializer<Object> memberSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        long now = System.currentTimeMillis();
+        // A tag set outlives every page it lists, then expires once nothing is cached under it anymore
+        long tagTtlSeconds = (long) (getMaximumTtl().toSeconds() * (1 + ttlJitter));
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            entries.forEach((key, entry) -> {
+                connection.stringCommands().set(keySerializer.serialize(key), entry.body(),
+                        Expiration.from(getTtl(key)), RedisStringCommands.SetOption.upsert());
+                // tag members go through the same serializer that SSCAN reads them back with
+                byte[] member = memberSerializer.serialize(key);
+                for (String tag : entry.tags()) {
+                    byte[] tagKey = keySerializer.serialize(tag);
+                    connection.setCommands().sAdd(tagKey, member);
+                    connection.keyCommands().expire(tagKey, tagTtlSeconds);
+                }
+                if (isSearchPage(key)) {
+                    connection.zSetCommands().zAdd(keySerializer.serialize(SEARCH_PAGES_KEY), now, member);
+                }
+            });
+            return null;
+        });
     }
 }
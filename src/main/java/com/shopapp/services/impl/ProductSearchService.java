@@ -0,0 +1,345 @@
+package com.shopapp.services.impl;
+
+import com.shopapp.models.Product;
+import com.shopapp.repositories.ProductRepository;
+import com.shopapp.services.interfaces.IProductSearchService;
+import com.shopapp.utils.TextNormalizer;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FloatDocValuesField;
+import org.apache.lucene.document.FloatPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class ProductSearchService implements IProductSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_ID_TERM = "id_term";
+    private static final String FIELD_CATEGORY_ID = "category_id";
+    private static final String FIELD_TEXT = "text";
+    private static final String FIELD_PRICE = "price";
+    private static final String FIELD_CREATED_AT = "created_at";
+    private static final String FIELD_NAME = "name";
+    private static final Sort ID_ORDER = new Sort(new SortField(FIELD_ID, SortField.Type.LONG));
+
+    private final ProductRepository productRepository;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private volatile SearchIndex searchIndex;
+    private final Lock changeLock = new ReentrantLock();
+    // Non-null while rebuildIndex runs: its new IndexWriter gets these writes too before it is published
+    private List<IndexChange> pendingChanges = null;
+    private volatile boolean ready = false;
+
+    private record SearchIndex(IndexWriter indexWriter, SearcherManager searcherManager) {
+    }
+
+    @FunctionalInterface
+    private interface SearchFunction<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface IndexChange {
+        void apply(IndexWriter indexWriter) throws IOException;
+    }
+
+    public ProductSearchService(ProductRepository productRepository) throws IOException {
+        this.productRepository = productRepository;
+        this.searchIndex = newSearchIndex();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Page<Long> searchProductIds(String keyword, Long categoryId,
+                                       Float minPrice, Float maxPrice, Pageable pageable) {
+        Query query = buildQuery(keyword, categoryId, minPrice, maxPrice).build();
+        int offset = (int) pageable.getOffset();
+        return search(searcher -> {
+            int total = searcher.count(query);
+            List<Long> ids = List.of();
+            if (offset < total) {
+                TopDocs topDocs = searcher.search(query, offset + pageable.getPageSize(),
+                        toLuceneSort(pageable.getSort()));
+                ids = readIds(searcher, topDocs, offset);
+            }
+            return new PageImpl<>(ids, pageable, total);
+        });
+    }
+
+    @Override
+    public List<Long> searchProductIdsAfter(String keyword, Long categoryId,
+                                            Float minPrice, Float maxPrice, long afterId, int limit) {
+        BooleanQuery.Builder builder = buildQuery(keyword, categoryId, minPrice, maxPrice);
+        builder.add(LongPoint.newRangeQuery(FIELD_ID, afterId + 1, Long.MAX_VALUE), BooleanClause.Occur.FILTER);
+        Query query = builder.build();
+        return search(searcher -> readIds(searcher, searcher.search(query, limit, ID_ORDER), 0));
+    }
+
+    @Override
+    public void indexProduct(Product product) {
+        Term term = new Term(FIELD_ID_TERM, product.getId().toString());
+        try {
+            apply(indexWriter -> indexWriter.updateDocument(term, toDocument(product)));
+        } catch (IOException e) {
+            logger.error("Cannot index product with id = {}", product.getId(), e);
+        }
+    }
+
+    @Override
+    public void removeProduct(Long productId) {
+        Term term = new Term(FIELD_ID_TERM, productId.toString());
+        try {
+            apply(indexWriter -> indexWriter.deleteDocuments(term));
+        } catch (IOException e) {
+            logger.error("Cannot remove product with id = {} from index", productId, e);
+        }
+    }
+
+    private void apply(IndexChange change) throws IOException {
+        changeLock.lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            SearchIndex current = searchIndex;
+            change.apply(current.indexWriter());
+            current.searcherManager().maybeRefresh();
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void rebuildIndex() {
+        long startTime = System.currentTimeMillis();
+        SearchIndex building = null;
+        changeLock.lock();
+        pendingChanges = new ArrayList<>();
+        changeLock.unlock();
+        try {
+            // Written to a new directory; searches keep the old SearcherManager until the swap
+            building = newSearchIndex();
+            IndexWriter indexWriter = building.indexWriter();
+            long lastId = 0L;
+            int count = 0;
+            List<Product> products;
+            do {
+                products = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+                for (Product product : products) {
+                    indexWriter.updateDocument(new Term(FIELD_ID_TERM, product.getId().toString()),
+                            toDocument(product));
+                    lastId = product.getId();
+                }
+                count += products.size();
+            } while (products.size() == REBUILD_BATCH_SIZE);
+            indexWriter.commit();
+            SearchIndex previous;
+            changeLock.lock();
+            try {
+                for (IndexChange change : pendingChanges) {
+                    change.apply(indexWriter);
+                }
+                building.searcherManager().maybeRefresh();
+                previous = searchIndex;
+                searchIndex = building;
+            } finally {
+                changeLock.unlock();
+            }
+            building = null;
+            ready = true;
+            logger.info("Product index rebuilt with {} products in {}ms",
+                    count, System.currentTimeMillis() - startTime);
+            close(previous);
+        } catch (Exception e) {
+            // Searches keep using the database query (or the previous index) until a rebuild succeeds
+            logger.warn("Cannot rebuild product index: {}", e.getMessage());
+            if (building != null) {
+                try {
+                    close(building);
+                } catch (IOException closeException) {
+                    logger.warn("Cannot close unused product index: {}", closeException.getMessage());
+                }
+            }
+        } finally {
+            changeLock.lock();
+            pendingChanges = null;
+            changeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("product-index-rebuild").start(this::rebuildIndex);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        close(searchIndex);
+    }
+
+    private SearchIndex newSearchIndex() throws IOException {
+        IndexWriter indexWriter = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+        return new SearchIndex(indexWriter, new SearcherManager(indexWriter, null));
+    }
+
+    // Searchers already acquired from a closed index stay usable until they are released
+    private void close(SearchIndex index) throws IOException {
+        index.searcherManager().close();
+        index.indexWriter().close();
+    }
+
+    private <T> T search(SearchFunction<T> function) {
+        try {
+            while (true) {
+                SearchIndex current = searchIndex;
+                IndexSearcher searcher;
+                try {
+                    searcher = current.searcherManager().acquire();
+                } catch (AlreadyClosedException e) {
+                    // Swapped by a rebuild between reading the field and acquiring; the next read sees the new index
+                    continue;
+                }
+                try {
+                    return function.apply(searcher);
+                } finally {
+                    current.searcherManager().release(searcher);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BooleanQuery.Builder buildQuery(String keyword, Long categoryId, Float minPrice, Float maxPrice) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER);
+        for (String token : tokenize(keyword)) {
+            // prefix per word keeps "as you type" searches close to the old LIKE behaviour
+            builder.add(new PrefixQuery(new Term(FIELD_TEXT, token)), BooleanClause.Occur.FILTER);
+        }
+        if (categoryId != null && categoryId != 0) {
+            builder.add(LongPoint.newExactQuery(FIELD_CATEGORY_ID, categoryId), BooleanClause.Occur.FILTER);
+        }
+        if (minPrice != null || maxPrice != null) {
+            builder.add(FloatPoint.newRangeQuery(FIELD_PRICE,
+                    minPrice == null ? Float.NEGATIVE_INFINITY : minPrice,
+                    maxPrice == null ? Float.POSITIVE_INFINITY : maxPrice), BooleanClause.Occur.FILTER);
+        }
+        return builder;
+    }
+
+    // Same ordering as the database query, from the doc values written in toDocument
+    private Sort toLuceneSort(org.springframework.data.domain.Sort sort) {
+        List<SortField> sortFields = new ArrayList<>();
+        for (org.springframework.data.domain.Sort.Order order : sort) {
+            boolean reverse = order.isDescending();
+            switch (order.getProperty()) {
+                case "price" -> sortFields.add(new SortField(FIELD_PRICE, SortField.Type.FLOAT, reverse));
+                case "createdAt" -> sortFields.add(new SortField(FIELD_CREATED_AT, SortField.Type.LONG, reverse));
+                case "name" -> sortFields.add(new SortField(FIELD_NAME, SortField.Type.STRING, reverse));
+                case "id" -> sortFields.add(new SortField(FIELD_ID, SortField.Type.LONG, reverse));
+                default -> logger.warn("Cannot sort the product index by {}", order.getProperty());
+            }
+        }
+        return sortFields.isEmpty() ? ID_ORDER : new Sort(sortFields.toArray(new SortField[0]));
+    }
+
+    private List<Long> readIds(IndexSearcher searcher, TopDocs topDocs, int offset) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        StoredFields storedFields = searcher.storedFields();
+        ScoreDoc[] hits = topDocs.scoreDocs;
+        for (int i = offset; i < hits.length; i++) {
+            ids.add(storedFields.document(hits[i].doc).getField(FIELD_ID).numericValue().longValue());
+        }
+        return ids;
+    }
+
+    private Document toDocument(Product product) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID_TERM, product.getId().toString(), Field.Store.NO));
+        document.add(new StoredField(FIELD_ID, product.getId()));
+        document.add(new LongPoint(FIELD_ID, product.getId()));
+        document.add(new NumericDocValuesField(FIELD_ID, product.getId()));
+        if (product.getCategory() != null) {
+            document.add(new LongPoint(FIELD_CATEGORY_ID, product.getCategory().getId()));
+        }
+        float price = product.getPrice() == null ? 0f : product.getPrice();
+        document.add(new FloatPoint(FIELD_PRICE, price));
+        document.add(new FloatDocValuesField(FIELD_PRICE, price));
+        document.add(new NumericDocValuesField(FIELD_CREATED_AT,
+                product.getCreatedAt() == null ? 0L : product.getCreatedAt().getTime()));
+        document.add(new SortedDocValuesField(FIELD_NAME,
+                new BytesRef(product.getName() == null ? "" : product.getName())));
+        String text = TextNormalizer.normalize(product.getName())
+                + " " + TextNormalizer.normalize(product.getDescription());
+        document.add(new TextField(FIELD_TEXT, text, Field.Store.NO));
+        return document;
+    }
+
+    private List<String> tokenize(String keyword) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream tokenStream = analyzer.tokenStream(FIELD_TEXT, TextNormalizer.normalize(keyword))) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            tokenStream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+}
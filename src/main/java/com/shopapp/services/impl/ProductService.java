@@ -10,15 +10,31 @@ import com.shopapp.models.ProductImage;
 import com.shopapp.repositories.CategoryRepository;
 import com.shopapp.repositories.ProductImageRepository;
 import com.shopapp.repositories.ProductRepository;
+import com.shopapp.responses.ProductListResponse;
 import com.shopapp.responses.ProductResponse;
+import com.shopapp.services.interfaces.IProductFuzzySearchService;
+import com.shopapp.services.interfaces.IProductSearchService;
 import com.shopapp.services.interfaces.IProductService;
+import com.shopapp.services.interfaces.IProductSnapshotService;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +44,9 @@ public class ProductService implements IProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductImageRepository productImageRepository;
+    private final IProductSearchService productSearchService;
+    private final IProductSnapshotService productSnapshotService;
+    private final IProductFuzzySearchService productFuzzySearchService;
 
     @Override
     public Product createProduct(ProductDTO productDTO) throws DataNotFoundException {
@@ -52,14 +71,110 @@ public class ProductService implements IProductService {
                 "Cannot find product with id =" + productId));
     }
 
+    @Override
+    public Product getDetailProduct(long productId) throws Exception {
+        return productRepository.getDetailProduct(productId).orElseThrow(() -> new DataNotFoundException(
+                "Cannot find product with id =" + productId));
+    }
+
     @Override
     public Page<ProductResponse> getAllProducts(String keyword,
-                                                Long categoryId, PageRequest pageRequest) {
+                                                Long categoryId, Float minPrice, Float maxPrice,
+                                                PageRequest pageRequest) {
+        if (StringUtils.hasText(keyword) && productSearchService.isReady()) {
+            // Resolve matching ids from the full-text index, then load only that page by primary key
+            Page<Long> idsPage = productSearchService
+                    .searchProductIds(keyword, categoryId, minPrice, maxPrice, pageRequest);
+            List<ProductResponse> productResponses = findProductsInOrder(idsPage.getContent())
+                    .stream()
+                    .map(ProductResponse::fromProduct)
+                    .toList();
+            return new PageImpl<>(productResponses, pageRequest, idsPage.getTotalElements());
+        }
+        if (!StringUtils.hasText(keyword) && productSnapshotService.supports(pageRequest.getSort())) {
+            // Filter and sort in memory, then load only the page by primary key
+            Page<Long> idsPage = productSnapshotService
+                    .searchProductIds(categoryId, minPrice, maxPrice, pageRequest);
+            List<ProductResponse> productResponses = getProductsByIds(idsPage.getContent());
+            return new PageImpl<>(productResponses, pageRequest, idsPage.getTotalElements());
+        }
         Page<Product> productsPage;
-        productsPage = productRepository.searchProducts(categoryId, keyword, pageRequest);
+        productsPage = productRepository.searchProducts(categoryId, keyword, minPrice, maxPrice, pageRequest);
         return productsPage.map(ProductResponse::fromProduct);
     }
 
+    @Override
+    public Page<ProductResponse> getFuzzyProducts(String keyword,
+                                                  Long categoryId, Float minPrice, Float maxPrice,
+                                                  PageRequest pageRequest) {
+        if (!StringUtils.hasText(keyword) || !productFuzzySearchService.isReady()) {
+            return getAllProducts(keyword, categoryId, minPrice, maxPrice, pageRequest.withSort(Sort.by("id")));
+        }
+        Page<Long> idsPage = productFuzzySearchService
+                .searchProductIds(keyword, categoryId, minPrice, maxPrice, pageRequest);
+        return new PageImpl<>(getProductsByIds(idsPage.getContent()), pageRequest, idsPage.getTotalElements());
+    }
+
+    @Override
+    public ProductListResponse getProductList(String keyword,
+                                              Long categoryId, Float minPrice, Float maxPrice,
+                                              PageRequest pageRequest, boolean fuzzy) {
+        Page<ProductResponse> productPage = fuzzy
+                ? getFuzzyProducts(keyword, categoryId, minPrice, maxPrice, pageRequest)
+                : getAllProducts(keyword, categoryId, minPrice, maxPrice, pageRequest);
+        // Add total pages to each product response
+        for (ProductResponse product : productPage.getContent()) {
+            product.setTotalPages(productPage.getTotalPages());
+        }
+        return ProductListResponse
+                .builder()
+                .products(productPage.getContent())
+                .totalPages(productPage.getTotalPages())
+                .build();
+    }
+
+    @Override
+    public Slice<ProductResponse> getProductsAfter(String keyword,
+                                                   Long categoryId, Float minPrice, Float maxPrice,
+                                                   long afterId, int limit) {
+        // One extra row tells whether a next page exists without a COUNT
+        List<Product> products;
+        if (StringUtils.hasText(keyword) && productSearchService.isReady()) {
+            products = findProductsInOrder(productSearchService
+                    .searchProductIdsAfter(keyword, categoryId, minPrice, maxPrice, afterId, limit + 1));
+        } else {
+            products = productRepository.searchProductsAfter(afterId, categoryId, keyword,
+                    minPrice, maxPrice, Limit.of(limit + 1));
+        }
+        boolean hasNext = products.size() > limit;
+        List<ProductResponse> productResponses = products.stream()
+                .limit(limit)
+                .map(ProductResponse::fromProduct)
+                .toList();
+        return new SliceImpl<>(productResponses, PageRequest.of(0, limit), hasNext);
+    }
+
+    @Override
+    public List<ProductResponse> getProductsByIds(List<Long> productIds) {
+        return findProductsInOrder(productIds)
+                .stream()
+                .map(ProductResponse::fromProduct)
+                .toList();
+    }
+
+    private List<Product> findProductsInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> productsById = productRepository.findProductsByIds(productIds)
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     @Override
     public Product updateProduct(
             long id,
@@ -93,25 +208,37 @@ public class ProductService implements IProductService {
         return productRepository.existsByName(name);
     }
 
+    // Its own transaction: the call below is on `this`, so createProductImages' @Transactional proxy is skipped
     @Override
+    @Transactional
     public ProductImage createProductImage(
             Long productId,
             ProductImageDTO productImageDTO) throws Exception {
+        return createProductImages(productId, List.of(productImageDTO.getImageUrl())).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<ProductImage> createProductImages(Long productId, List<String> imageUrls) throws Exception {
+        // The row lock keeps two concurrent uploads from both passing the limit check
         Product existingProduct = productRepository
-                .findById(productId)
+                .findByIdForUpdate(productId)
                 .orElseThrow(() -> new DataNotFoundException(
-                        "Cannot find product with id: " + productImageDTO.getProductId()));
-        ProductImage newProductImage = ProductImage.builder()
-                .product(existingProduct)
-                .imageUrl(productImageDTO.getImageUrl())
-                .build();
+                        "Cannot find product with id: " + productId));
         // Not allow to upload more than 5 imgs / a product
-        int size = productImageRepository.findByProductId(productId).size();
-        if (size >= ProductImage.MAXIMUM_IMAGES_PER_PRODUCT) {
+        long size = productImageRepository.countByProductId(productId);
+        if (size + imageUrls.size() > ProductImage.MAXIMUM_IMAGES_PER_PRODUCT) {
             throw new InvalidParamException(
                     "Number of images must be <= "
                             + ProductImage.MAXIMUM_IMAGES_PER_PRODUCT);
         }
-        return productImageRepository.save(newProductImage);
+        List<ProductImage> newProductImages = imageUrls.stream()
+                .map(imageUrl -> ProductImage.builder()
+                        .product(existingProduct)
+                        .imageUrl(imageUrl)
+                        .build())
+                .toList();
+        // Sequence ids and hibernate.jdbc.batch_size turn these into one batched INSERT
+        return productImageRepository.saveAll(newProductImages);
     }
 }
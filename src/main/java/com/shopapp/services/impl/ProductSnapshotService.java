@@ -0,0 +1,297 @@
+package com.shopapp.services.impl;
+
+import com.shopapp.models.Product;
+import com.shopapp.repositories.ProductRepository;
+import com.shopapp.services.interfaces.IProductSnapshotService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/*
+ * Columnar copy of the fields listings filter and sort on (id, price, category, created_at), one
+ * primitive array per column with rows kept in id order. Filtering is a linear scan over the
+ * arrays and ordering packs (sort key, row) into a single long, so a query never touches a
+ * Product object; only the ids of the requested page are loaded from the database.
+ */
+@Service
+public class ProductSnapshotService implements IProductSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSnapshotService.class);
+    private static final int REBUILD_BATCH_SIZE = 5_000;
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final long NO_CATEGORY = 0L;
+    // row numbers take the low 31 bits of a packed sort value
+    private static final int ROW_BITS = 31;
+    private static final long ROW_MASK = (1L << ROW_BITS) - 1;
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "price", "createdAt");
+
+    private final ProductRepository productRepository;
+    @Value("${product-snapshot.enabled}")
+    private boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns = new Columns();
+    // Changes made while a rebuild is reading the database, replayed on the new columns before the swap
+    private List<Consumer<Columns>> pendingChanges = null;
+    private volatile boolean ready = false;
+
+    private volatile long lastRebuildMillis = -1L;
+    private final AtomicLong queryCount = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+    private final AtomicLong maxQueryNanos = new AtomicLong();
+
+    private static class Columns {
+        long[] ids = new long[INITIAL_CAPACITY];
+        float[] prices = new float[INITIAL_CAPACITY];
+        long[] categoryIds = new long[INITIAL_CAPACITY];
+        // seconds: created_at is an Oracle DATE, so finer precision would not match the database order
+        long[] createdAtSeconds = new long[INITIAL_CAPACITY];
+        int size = 0;
+
+        void upsert(long id, Float price, Long categoryId, Date createdAt) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row < 0) {
+                // new products get increasing ids, so this is normally an append
+                row = -row - 1;
+                ensureCapacity(size + 1);
+                int moved = size - row;
+                System.arraycopy(ids, row, ids, row + 1, moved);
+                System.arraycopy(prices, row, prices, row + 1, moved);
+                System.arraycopy(categoryIds, row, categoryIds, row + 1, moved);
+                System.arraycopy(createdAtSeconds, row, createdAtSeconds, row + 1, moved);
+                size++;
+                ids[row] = id;
+            }
+            prices[row] = price == null ? 0f : price;
+            categoryIds[row] = categoryId == null ? NO_CATEGORY : categoryId;
+            createdAtSeconds[row] = createdAt == null ? 0L : Math.max(0L, createdAt.getTime() / 1_000);
+        }
+
+        void remove(long id) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row >= 0) {
+                int moved = size - row - 1;
+                System.arraycopy(ids, row + 1, ids, row, moved);
+                System.arraycopy(prices, row + 1, prices, row, moved);
+                System.arraycopy(categoryIds, row + 1, categoryIds, row, moved);
+                System.arraycopy(createdAtSeconds, row + 1, createdAtSeconds, row, moved);
+                size--;
+            }
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newCapacity);
+            prices = Arrays.copyOf(prices, newCapacity);
+            categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+            createdAtSeconds = Arrays.copyOf(createdAtSeconds, newCapacity);
+        }
+
+        boolean matches(int row, long categoryId, float min, float max) {
+            return (categoryId == NO_CATEGORY || categoryIds[row] == categoryId)
+                    && prices[row] >= min && prices[row] <= max;
+        }
+
+        // Non-negative keys below 2^32 that order like the column values
+        long sortKey(String property, int row) {
+            if (property.equals("price")) {
+                int bits = Float.floatToIntBits(prices[row]);
+                bits ^= (bits >> 31) & 0x7fffffff;
+                return (long) bits - Integer.MIN_VALUE;
+            }
+            return createdAtSeconds[row];
+        }
+
+        long memoryBytes() {
+            return (long) ids.length * (Long.BYTES + Float.BYTES + Long.BYTES + Long.BYTES);
+        }
+    }
+
+    public ProductSnapshotService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public boolean supports(Sort sort) {
+        return ready && sort.stream().allMatch(order -> SORTABLE_PROPERTIES.contains(order.getProperty()));
+    }
+
+    @Override
+    public Page<Long> searchProductIds(Long categoryId, Float minPrice, Float maxPrice, Pageable pageable) {
+        long startTime = System.nanoTime();
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        boolean descending = order.isDescending();
+        long offset = pageable.getOffset();
+        long end = offset + pageable.getPageSize();
+        long category = categoryId == null ? NO_CATEGORY : categoryId;
+        float min = minPrice == null ? Float.NEGATIVE_INFINITY : minPrice;
+        float max = maxPrice == null ? Float.POSITIVE_INFINITY : maxPrice;
+
+        List<Long> pageIds = new ArrayList<>();
+        int total = 0;
+        lock.readLock().lock();
+        try {
+            Columns current = columns;
+            if (order.getProperty().equals("id")) {
+                // rows already are in id order, only the count needs the full scan
+                for (int i = 0; i < current.size; i++) {
+                    int row = descending ? current.size - 1 - i : i;
+                    if (current.matches(row, category, min, max)) {
+                        if (total >= offset && total < end) {
+                            pageIds.add(current.ids[row]);
+                        }
+                        total++;
+                    }
+                }
+            } else {
+                long[] packed = new long[current.size];
+                for (int row = 0; row < current.size; row++) {
+                    if (current.matches(row, category, min, max)) {
+                        packed[total++] = (current.sortKey(order.getProperty(), row) << ROW_BITS) | row;
+                    }
+                }
+                // equal keys fall back to row order, i.e. id order, like the database's id tie-breaker
+                Arrays.sort(packed, 0, total);
+                for (long i = offset; i < Math.min(end, total); i++) {
+                    long value = packed[(int) (descending ? total - 1 - i : i)];
+                    pageIds.add(current.ids[(int) (value & ROW_MASK)]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        recordQuery(System.nanoTime() - startTime);
+        return new PageImpl<>(pageIds, pageable, total);
+    }
+
+    @Override
+    public void upsertProduct(Product product) {
+        if (!enabled || product.getId() == null) {
+            return;
+        }
+        long id = product.getId();
+        Float price = product.getPrice();
+        Long categoryId = product.getCategory() == null ? null : product.getCategory().getId();
+        Date createdAt = product.getCreatedAt();
+        apply(target -> target.upsert(id, price, categoryId, createdAt));
+    }
+
+    @Override
+    public void removeProduct(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        apply(target -> target.remove(productId));
+    }
+
+    private void apply(Consumer<Columns> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(columns);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public synchronized void rebuildSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        lock.writeLock().lock();
+        pendingChanges = new ArrayList<>();
+        lock.writeLock().unlock();
+        try {
+            // Built aside and swapped in, so queries keep using the old columns meanwhile
+            Columns building = new Columns();
+            long lastId = 0L;
+            List<Object[]> rows;
+            do {
+                rows = productRepository.findSnapshotRowsAfter(lastId, Limit.of(REBUILD_BATCH_SIZE));
+                for (Object[] row : rows) {
+                    lastId = (Long) row[0];
+                    building.upsert(lastId, (Float) row[1], (Long) row[2], (Date) row[3]);
+                }
+            } while (rows.size() == REBUILD_BATCH_SIZE);
+            lock.writeLock().lock();
+            try {
+                pendingChanges.forEach(change -> change.accept(building));
+                columns = building;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            lastRebuildMillis = System.currentTimeMillis() - startTime;
+            logger.info("Product snapshot rebuilt with {} products in {}ms", building.size, lastRebuildMillis);
+        } catch (Exception e) {
+            // Listings keep using the database query until a rebuild succeeds
+            logger.warn("Cannot rebuild product snapshot: {}", e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            pendingChanges = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            Thread.ofVirtual().name("product-snapshot-rebuild").start(this::rebuildSnapshot);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        long queries = queryCount.get();
+        statistics.put("enabled", enabled);
+        statistics.put("ready", ready);
+        lock.readLock().lock();
+        try {
+            statistics.put("rows", columns.size);
+            statistics.put("capacity", columns.ids.length);
+            statistics.put("memoryBytes", columns.memoryBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+        statistics.put("lastRebuildMillis", lastRebuildMillis);
+        statistics.put("queries", queries);
+        statistics.put("averageQueryMicros", queries == 0 ? 0 : queryNanos.get() / queries / 1_000);
+        statistics.put("maxQueryMicros", maxQueryNanos.get() / 1_000);
+        return statistics;
+    }
+
+    private void recordQuery(long nanos) {
+        queryCount.incrementAndGet();
+        queryNanos.addAndGet(nanos);
+        maxQueryNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
@@ -0,0 +1,216 @@
+package com.shopapp.services.impl;
+
+import com.shopapp.models.Product;
+import com.shopapp.repositories.ProductRepository;
+import com.shopapp.responses.ProductSuggestionResponse;
+import com.shopapp.services.interfaces.IProductSuggestService;
+import com.shopapp.utils.TextNormalizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/*
+ * Sorted map from "normalized name read from one of its word starts" to the product, so every
+ * product is found by the start of any of its words. A key is the product's normalized name plus
+ * an offset, not a copied substring: a name of w words costs w small entries over one shared
+ * String. A prefix lookup is one O(log n) seek followed by an in-order walk of a bounded number
+ * of entries, which are then ranked; reads never lock.
+ */
+@Service
+public class ProductSuggestService implements IProductSuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggestService.class);
+    private static final int REBUILD_BATCH_SIZE = 5_000;
+    // Matches ranked per lookup; the rest of a very common prefix is not looked at
+    private static final int MAXIMUM_SCANNED_ENTRIES = 200;
+    // By the text from the offset on, then by id so products with the same name do not overwrite each other
+    private static final Comparator<SuffixKey> SUFFIX_ORDER = (first, second) -> {
+        int compared = compareSuffixes(first.name(), first.offset(), second.name(), second.offset());
+        return compared != 0 ? compared : Long.compare(first.productId(), second.productId());
+    };
+    // Whole-name matches first, then shorter (more specific) names
+    private static final Comparator<Map.Entry<SuffixKey, ProductSuggestionResponse>> RANKING =
+            Comparator.<Map.Entry<SuffixKey, ProductSuggestionResponse>>comparingInt(entry -> entry.getKey().offset() == 0 ? 0 : 1)
+                    .thenComparingInt(entry -> entry.getKey().name().length())
+                    .thenComparing(entry -> entry.getKey().name())
+                    .thenComparingLong(entry -> entry.getKey().productId());
+
+    // The normalized name read from `offset`, which is 0 or just after a space
+    private record SuffixKey(String name, int offset, long productId) {
+    }
+
+    private final ProductRepository productRepository;
+    private volatile Suggestions suggestions = new Suggestions();
+    private final Lock changeLock = new ReentrantLock();
+    // Recorded during rebuildSuggestions, whose database scan may have read the product before the change
+    private List<Consumer<Suggestions>> pendingChanges = null;
+
+    private static class Suggestions {
+        final ConcurrentSkipListMap<SuffixKey, ProductSuggestionResponse> entries =
+                new ConcurrentSkipListMap<>(SUFFIX_ORDER);
+        final Map<Long, List<SuffixKey>> keysByProductId = new ConcurrentHashMap<>();
+    }
+
+    public ProductSuggestService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public List<ProductSuggestionResponse> suggest(String prefix, int limit) {
+        String normalizedPrefix = TextNormalizer.normalize(prefix);
+        List<ProductSuggestionResponse> results = new ArrayList<>();
+        if (normalizedPrefix.isEmpty()) {
+            return results;
+        }
+        // Every key whose text starts with the prefix sorts at or after the prefix itself
+        SuffixKey lowerBound = new SuffixKey(normalizedPrefix, 0, Long.MIN_VALUE);
+        Map<Long, Map.Entry<SuffixKey, ProductSuggestionResponse>> bestByProductId = new HashMap<>();
+        int scanned = 0;
+        for (Map.Entry<SuffixKey, ProductSuggestionResponse> entry : suggestions.entries.tailMap(lowerBound, true).entrySet()) {
+            SuffixKey key = entry.getKey();
+            if (++scanned > MAXIMUM_SCANNED_ENTRIES || !key.name().startsWith(normalizedPrefix, key.offset())) {
+                break;
+            }
+            bestByProductId.merge(key.productId(), entry,
+                    (current, candidate) -> RANKING.compare(candidate, current) < 0 ? candidate : current);
+        }
+        bestByProductId.values().stream()
+                .sorted(RANKING)
+                .limit(limit)
+                .forEach(entry -> results.add(entry.getValue()));
+        return results;
+    }
+
+    @Override
+    public void upsertProduct(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        Long productId = product.getId();
+        String name = product.getName();
+        apply(target -> upsertProduct(target, productId, name));
+    }
+
+    @Override
+    public void removeProduct(Long productId) {
+        apply(target -> removeProduct(target, productId));
+    }
+
+    private void apply(Consumer<Suggestions> change) {
+        changeLock.lock();
+        try {
+            change.accept(suggestions);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void rebuildSuggestions() {
+        long startTime = System.currentTimeMillis();
+        changeLock.lock();
+        pendingChanges = new ArrayList<>();
+        changeLock.unlock();
+        try {
+            // A fresh map, so products deleted since the last rebuild do not linger
+            Suggestions building = new Suggestions();
+            long lastId = 0L;
+            List<Object[]> rows;
+            do {
+                rows = productRepository.findNamesAfter(lastId, Limit.of(REBUILD_BATCH_SIZE));
+                for (Object[] row : rows) {
+                    lastId = (Long) row[0];
+                    upsertProduct(building, lastId, (String) row[1]);
+                }
+            } while (rows.size() == REBUILD_BATCH_SIZE);
+            changeLock.lock();
+            try {
+                pendingChanges.forEach(change -> change.accept(building));
+                suggestions = building;
+            } finally {
+                changeLock.unlock();
+            }
+            logger.info("Product suggestions rebuilt with {} products in {}ms",
+                    building.keysByProductId.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            logger.warn("Cannot rebuild product suggestions: {}", e.getMessage());
+        } finally {
+            changeLock.lock();
+            pendingChanges = null;
+            changeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofVirtual().name("product-suggest-rebuild").start(this::rebuildSuggestions);
+    }
+
+    private void upsertProduct(Suggestions target, Long productId, String name) {
+        removeProduct(target, productId);
+        ProductSuggestionResponse suggestion = ProductSuggestionResponse.builder()
+                .id(productId)
+                .name(name)
+                .build();
+        List<SuffixKey> keys = getKeys(productId, name);
+        for (SuffixKey key : keys) {
+            target.entries.put(key, suggestion);
+        }
+        target.keysByProductId.put(productId, keys);
+    }
+
+    private void removeProduct(Suggestions target, Long productId) {
+        List<SuffixKey> keys = target.keysByProductId.remove(productId);
+        if (keys != null) {
+            keys.forEach(target.entries::remove);
+        }
+    }
+
+    // "iphone 15 pro" -> offsets 0, 7 and 10 ("iphone 15 pro", "15 pro", "pro"), all over the same String
+    private List<SuffixKey> getKeys(Long productId, String name) {
+        String normalizedName = TextNormalizer.normalize(name);
+        List<SuffixKey> keys = new ArrayList<>();
+        if (!normalizedName.isEmpty()) {
+            int start = 0;
+            while (start >= 0) {
+                keys.add(new SuffixKey(normalizedName, start, productId));
+                int space = normalizedName.indexOf(' ', start);
+                start = space < 0 ? -1 : space + 1;
+            }
+        }
+        return keys;
+    }
+
+    // Same order as first.substring(firstOffset).compareTo(second.substring(secondOffset)), without the copies
+    private static int compareSuffixes(String first, int firstOffset, String second, int secondOffset) {
+        int firstLength = first.length() - firstOffset;
+        int secondLength = second.length() - secondOffset;
+        int length = Math.min(firstLength, secondLength);
+        for (int i = 0; i < length; i++) {
+            char firstChar = first.charAt(firstOffset + i);
+            char secondChar = second.charAt(secondOffset + i);
+            if (firstChar != secondChar) {
+                return firstChar - secondChar;
+            }
+        }
+        return firstLength - secondLength;
+    }
+}
@@ -0,0 +1,20 @@
+package com.shopapp.services.interfaces;
+
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Map;
+
+public interface IProductCacheWarmService {
+
+    // Counts one request for a listing page (all_products:*); cheap, the counts reach Redis in batches
+    void recordRequest(String keyword, Long categoryId, Float minPrice, Float maxPrice,
+                       PageRequest pageRequest, boolean fuzzy);
+
+    // Makes sure the most requested pages are cached, loading the missing ones; returns the number of pages
+    int warm();
+
+    // False until the startup warm-up has run (whether or not it succeeded)
+    boolean isWarmedUp();
+
+    Map<String, Object> getStatistics();
+}
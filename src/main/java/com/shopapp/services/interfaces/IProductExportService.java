@@ -0,0 +1,10 @@
+package com.shopapp.services.interfaces;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface IProductExportService {
+
+    // Writes every product as one ProductResponse JSON object per line, in id order; returns the count
+    long exportProducts(OutputStream outputStream) throws IOException;
+}
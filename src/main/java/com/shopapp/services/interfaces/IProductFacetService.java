@@ -0,0 +1,14 @@
+package com.shopapp.services.interfaces;
+
+import java.util.Map;
+
+public interface IProductFacetService {
+
+    // Number of products per category id, without counting the products table
+    Map<Long, Long> getCategoryCounts();
+
+    // Adds the net change of each category's counter (see IProductInvalidationService.productMoved)
+    void adjustCounts(Map<Long, Long> deltas);
+
+    void rebuildCounts();
+}
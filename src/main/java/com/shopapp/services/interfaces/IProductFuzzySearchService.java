@@ -0,0 +1,21 @@
+package com.shopapp.services.interfaces;
+
+import com.shopapp.models.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface IProductFuzzySearchService {
+
+    // False until the index has been fully built from the database
+    boolean isReady();
+
+    // Ids whose name or description words are within a small edit distance of every keyword, best match first
+    Page<Long> searchProductIds(String keyword, Long categoryId,
+                                Float minPrice, Float maxPrice, Pageable pageable);
+
+    void upsertProduct(Product product);
+
+    void removeProduct(Long productId);
+
+    void rebuildIndex();
+}
@@ -0,0 +1,14 @@
+package com.shopapp.services.interfaces;
+
+import com.shopapp.models.ProductImage;
+
+import java.util.List;
+
+public interface IProductImageVariantService {
+
+    // Queues the images for resizing once their rows are committed; returns how many were accepted
+    int submit(List<ProductImage> productImages);
+
+    // Writes the resized copies of one image and records them on its row, on the calling thread
+    void generateVariants(Long productImageId);
+}
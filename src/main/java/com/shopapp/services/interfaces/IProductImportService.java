@@ -0,0 +1,17 @@
+package com.shopapp.services.interfaces;
+
+import com.shopapp.exceptions.InvalidParamException;
+import com.shopapp.responses.ProductImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface IProductImportService {
+
+    /*
+     * Reads products from a CSV (header: name,price,category_id,description,thumbnail) or NDJSON
+     * (one ProductDTO per line) stream; invalid rows are reported and skipped, the others inserted
+     */
+    ProductImportResponse importProducts(InputStream inputStream, boolean csv)
+            throws IOException, InvalidParamException;
+}
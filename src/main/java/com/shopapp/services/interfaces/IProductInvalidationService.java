@@ -0,0 +1,24 @@
+package com.shopapp.services.interfaces;
+
+import com.shopapp.models.Product;
+
+import java.util.Collection;
+
+/*
+ * Collects the cache and index work caused by product changes during a transaction and applies
+ * it once, deduplicated, after the commit (nothing is applied on rollback); outside a transaction
+ * the change is applied right away. Redis work never runs on the caller's thread.
+ */
+public interface IProductInvalidationService {
+
+    // The product's cached detail and the pages of these categories (old and new) must be evicted
+    void productChanged(Long productId, Collection<Long> categoryIds);
+
+    // One product moved between category counters; null means "no category" (created or removed)
+    void productMoved(Long fromCategoryId, Long toCategoryId);
+
+    // The product's state as flushed, for the in-memory indexes (search, snapshot, suggest, fuzzy)
+    void productSaved(Product product);
+
+    void productRemoved(Long productId);
+}
@@ -1,9 +1,12 @@
 package com.shopapp.services.interfaces;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.shopapp.responses.ProductListResponse;
 import com.shopapp.responses.ProductResponse;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 import org.springframework.data.domain.PageRequest;
 
@@ -11,13 +14,40 @@ public interface IProductRedisService {
     // Clear cached data in Redis
     void clear();// clear cache
 
-    List<ProductResponse> getAllProducts(
+    // False when spring.data.redis.use-redis-cache is off: every call goes straight to the loader
+    boolean isEnabled();
+
+    // Evict only the cached pages tagged with one of these products or categories, in one invalidation
+    void evictProducts(Collection<Long> productIds, Collection<Long> categoryIds);
+
+    // Changes whenever any cached product page is evicted; -1 when it cannot be determined
+    long getCatalogVersion();
+
+    // Runs the task without counting its cache reads as hits or misses, e.g. for the cache warmer
+    <T> T callUnrecorded(Callable<T> task) throws Exception;
+
+    /*
+     * Serialized (possibly gzip-compressed, see GzipUtils) JSON body of the page, cached or
+     * produced by the loader; concurrent misses for the same page share one load
+     */
+    byte[] getAllProducts(
             String keyword,
-            Long categoryId, PageRequest pageRequest) throws JsonProcessingException;
+            Long categoryId, Float minPrice, Float maxPrice, PageRequest pageRequest,
+            Callable<ProductListResponse> loader) throws Exception;
 
-    void saveAllProducts(List<ProductResponse> productResponses,
+    byte[] getProductsAfter(
             String keyword,
-            Long categoryId,
-            PageRequest pageRequest) throws JsonProcessingException;
+            Long categoryId, Float minPrice, Float maxPrice, long afterId, int limit,
+            Callable<ProductListResponse> loader) throws Exception;
+
+    // Serialized detail of one product, evicted whenever that product changes
+    byte[] getProductDetail(Long productId, Callable<ProductResponse> loader) throws Exception;
+
+    /*
+     * JSON array of the product details in the order of productIds, built from the cached
+     * entries; the loader is called once with all the ids that were not cached
+     */
+    byte[] getProductDetails(List<Long> productIds,
+            Function<List<Long>, List<ProductResponse>> loader) throws Exception;
 
 }
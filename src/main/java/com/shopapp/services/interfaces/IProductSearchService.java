@@ -0,0 +1,27 @@
+package com.shopapp.services.interfaces;
+
+import com.shopapp.models.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface IProductSearchService {
+
+    // False until the index has been fully built from the database
+    boolean isReady();
+
+    // minPrice and maxPrice are inclusive, null means unbounded
+    Page<Long> searchProductIds(String keyword, Long categoryId,
+                                Float minPrice, Float maxPrice, Pageable pageable);
+
+    // Ids greater than afterId in ascending order, without counting the total
+    List<Long> searchProductIdsAfter(String keyword, Long categoryId,
+                                     Float minPrice, Float maxPrice, long afterId, int limit);
+
+    void indexProduct(Product product);
+
+    void removeProduct(Long productId);
+
+    void rebuildIndex();
+}
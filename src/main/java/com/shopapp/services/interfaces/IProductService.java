@@ -2,19 +2,44 @@ package com.shopapp.services.interfaces;
 
 import com.shopapp.dtos.ProductDTO;
 import com.shopapp.dtos.ProductImageDTO;
+import com.shopapp.responses.ProductListResponse;
 import com.shopapp.responses.ProductResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import com.shopapp.models.*;
 
+import java.util.List;
+
 public interface IProductService {
 
     Product createProduct(ProductDTO productDTO) throws Exception;
 
     Product getProductById(long id) throws Exception;
 
+    // Product with its category and images, loaded in a single query
+    Product getDetailProduct(long id) throws Exception;
+
     public Page<ProductResponse> getAllProducts(String keyword,
-                                                Long categoryId, PageRequest pageRequest);
+                                                Long categoryId, Float minPrice, Float maxPrice,
+                                                PageRequest pageRequest);
+
+    // Typo-tolerant keyword search, best match first
+    Page<ProductResponse> getFuzzyProducts(String keyword,
+                                           Long categoryId, Float minPrice, Float maxPrice,
+                                           PageRequest pageRequest);
+
+    // One listing page as it is cached and returned by GET /products
+    ProductListResponse getProductList(String keyword,
+                                       Long categoryId, Float minPrice, Float maxPrice,
+                                       PageRequest pageRequest, boolean fuzzy);
+
+    Slice<ProductResponse> getProductsAfter(String keyword,
+                                            Long categoryId, Float minPrice, Float maxPrice,
+                                            long afterId, int limit);
+
+    // Products in the order of the given ids, unknown ids are skipped
+    List<ProductResponse> getProductsByIds(List<Long> productIds);
 
     Product updateProduct(long id, ProductDTO productDTO) throws Exception;
 
@@ -26,4 +51,7 @@ public interface IProductService {
             Long productId,
             ProductImageDTO productImageDTO) throws Exception;
 
+    // Adds all the images in one transaction, or none if the product would exceed its image limit
+    List<ProductImage> createProductImages(Long productId, List<String> imageUrls) throws Exception;
+
 }
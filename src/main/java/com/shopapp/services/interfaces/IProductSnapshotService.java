@@ -0,0 +1,26 @@
+package com.shopapp.services.interfaces;
+
+import com.shopapp.models.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+
+public interface IProductSnapshotService {
+
+    // True when the snapshot is enabled, built, and can order rows by this sort
+    boolean supports(Sort sort);
+
+    // minPrice and maxPrice are inclusive, null means unbounded
+    Page<Long> searchProductIds(Long categoryId, Float minPrice, Float maxPrice, Pageable pageable);
+
+    void upsertProduct(Product product);
+
+    void removeProduct(Long productId);
+
+    void rebuildSnapshot();
+
+    // Row count, memory use and query latency, reported by the actuator endpoint
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,19 @@
+package com.shopapp.services.interfaces;
+
+import com.shopapp.models.Product;
+import com.shopapp.responses.ProductSuggestionResponse;
+
+import java.util.List;
+
+public interface IProductSuggestService {
+
+    // Products having a word that starts with the prefix (case and diacritics ignored); names starting
+    // with it come first, then shorter names
+    List<ProductSuggestionResponse> suggest(String prefix, int limit);
+
+    void upsertProduct(Product product);
+
+    void removeProduct(Long productId);
+
+    void rebuildSuggestions();
+}
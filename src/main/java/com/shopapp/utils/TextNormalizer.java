@@ -0,0 +1,32 @@
+package com.shopapp.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    // Lower case, strip diacritics (Vietnamese 'đ' has no decomposition) and collapse spaces
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        folded = COMBINING_MARKS.matcher(folded).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        return WHITESPACES.matcher(folded).replaceAll(" ").trim();
+    }
+
+    // Trim and collapse spaces only: unlike normalize(), keeps the case the database LIKE fallback relies on
+    public static String collapseSpaces(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACES.matcher(text).replaceAll(" ").trim();
+    }
+}
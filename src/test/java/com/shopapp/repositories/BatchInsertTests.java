@@ -0,0 +1,136 @@
+package com.shopapp.repositories;
+
+import com.shopapp.models.Category;
+import com.shopapp.models.Order;
+import com.shopapp.models.OrderDetail;
+import com.shopapp.models.OrderStatus;
+import com.shopapp.models.Product;
+import com.shopapp.models.ProductImage;
+import com.shopapp.services.interfaces.IProductFuzzySearchService;
+import com.shopapp.services.interfaces.IProductInvalidationService;
+import com.shopapp.services.interfaces.IProductSearchService;
+import com.shopapp.services.interfaces.IProductSnapshotService;
+import com.shopapp.services.interfaces.IProductSuggestService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Inserting many rows must cost a statement per JDBC batch (plus a few sequence calls), not one per row
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class BatchInsertTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchInsertTests.class);
+    private static final int ROW_COUNT = 500;
+    // hibernate.jdbc.batch_size and the sequences' allocationSize
+    private static final int BATCH_SIZE = 50;
+    private static final int MAXIMUM_STATEMENTS = 2 * (ROW_COUNT / BATCH_SIZE) + 2;
+
+    @MockBean
+    private IProductInvalidationService productInvalidationService;
+
+    @MockBean
+    private IProductSearchService productSearchService;
+
+    @MockBean
+    private IProductSnapshotService productSnapshotService;
+
+    @MockBean
+    private IProductSuggestService productSuggestService;
+
+    @MockBean
+    private IProductFuzzySearchService productFuzzySearchService;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Product product;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        Category category = entityManager.persist(Category.builder().name("Laptop").build());
+        product = entityManager.persist(Product.builder().name("Product").price(100f).category(category).build());
+        order = entityManager.persist(Order.builder()
+                .phoneNumber("0987654321")
+                .orderDate(new Date())
+                .status(OrderStatus.PENDING)
+                .totalMoney(100f)
+                .active(true)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        product = entityManager.find(Product.class, product.getId());
+        order = entityManager.find(Order.class, order.getId());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void orderDetailInsertsAreBatched() {
+        List<OrderDetail> orderDetails = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            orderDetails.add(OrderDetail.builder()
+                    .order(order)
+                    .product(product)
+                    .price(10f)
+                    .numberOfProducts(1)
+                    .totalMoney(10f)
+                    .build());
+        }
+        long startTime = System.nanoTime();
+        orderDetailRepository.saveAll(orderDetails);
+        entityManager.flush();
+        report("order_details", startTime);
+    }
+
+    @Test
+    void productImageInsertsAreBatched() {
+        List<ProductImage> productImages = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            productImages.add(ProductImage.builder()
+                    .product(product)
+                    .imageUrl("image-" + i + ".png")
+                    .build());
+        }
+        long startTime = System.nanoTime();
+        productImageRepository.saveAll(productImages);
+        entityManager.flush();
+        report("product_images", startTime);
+    }
+
+    private void report(String table, long startTime) {
+        long statements = statistics.getPrepareStatementCount();
+        logger.info("{} rows into {}: {} statements in {}ms",
+                ROW_COUNT, table, statements, (System.nanoTime() - startTime) / 1_000_000);
+        assertTrue(statements <= MAXIMUM_STATEMENTS,
+                "statements for " + ROW_COUNT + " inserts: " + statements);
+    }
+}
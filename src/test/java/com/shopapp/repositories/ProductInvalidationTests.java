@@ -0,0 +1,146 @@
+package com.shopapp.repositories;
+
+import com.shopapp.models.Category;
+import com.shopapp.models.Product;
+import com.shopapp.services.impl.ProductInvalidationService;
+import com.shopapp.services.interfaces.IProductFacetService;
+import com.shopapp.services.interfaces.IProductFuzzySearchService;
+import com.shopapp.services.interfaces.IProductRedisService;
+import com.shopapp.services.interfaces.IProductSearchService;
+import com.shopapp.services.interfaces.IProductSnapshotService;
+import com.shopapp.services.interfaces.IProductSuggestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+// Product changes reach Redis and the in-memory indexes once per committed transaction, never on rollback
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import(ProductInvalidationService.class)
+// Each test drives its own transactions, so the listeners' after-commit work actually runs
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductInvalidationTests {
+
+    private static final int PRODUCT_COUNT = 1_000;
+    // Redis work is dispatched on a virtual thread
+    private static final long DISPATCH_TIMEOUT_MS = 5_000;
+    private static final long NO_DISPATCH_WAIT_MS = 500;
+
+    @MockBean
+    private IProductRedisService productRedisService;
+
+    @MockBean
+    private IProductFacetService productFacetService;
+
+    @MockBean
+    private IProductSearchService productSearchService;
+
+    @MockBean
+    private IProductSnapshotService productSnapshotService;
+
+    @MockBean
+    private IProductSuggestService productSuggestService;
+
+    @MockBean
+    private IProductFuzzySearchService productFuzzySearchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        category = categoryRepository.save(Category.builder().name("Laptop").build());
+    }
+
+    @Test
+    void manySavesInOneTransactionDispatchOnce() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < PRODUCT_COUNT; i++) {
+                productRepository.save(newProduct("Product " + i));
+            }
+            productRepository.flush();
+            verifyNoInteractions(productRedisService, productSearchService);
+        });
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> productIds = ArgumentCaptor.forClass(Collection.class);
+        verify(productRedisService, timeout(DISPATCH_TIMEOUT_MS).times(1))
+                .evictProducts(productIds.capture(), anyCollection());
+        assertEquals(PRODUCT_COUNT, productIds.getValue().size());
+        verify(productFacetService, timeout(DISPATCH_TIMEOUT_MS).times(1)).adjustCounts(any());
+        verify(productSearchService, times(PRODUCT_COUNT)).indexProduct(any(Product.class));
+        verify(productSuggestService, times(PRODUCT_COUNT)).upsertProduct(any(Product.class));
+    }
+
+    @Test
+    void rolledBackTransactionDispatchesNothing() {
+        Product existing = productRepository.save(newProduct("Existing"));
+        verify(productRedisService, timeout(DISPATCH_TIMEOUT_MS).times(1)).evictProducts(anyCollection(), anyCollection());
+        clearInvocations(productRedisService, productFacetService, productSearchService, productSnapshotService,
+                productSuggestService, productFuzzySearchService);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.save(newProduct("Rolled back"));
+            productRepository.delete(productRepository.findById(existing.getId()).orElseThrow());
+            productRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        verify(productRedisService, after(NO_DISPATCH_WAIT_MS).never()).evictProducts(anyCollection(), anyCollection());
+        verify(productFacetService, never()).adjustCounts(any());
+        verify(productSearchService, never()).indexProduct(any(Product.class));
+        verify(productSearchService, never()).removeProduct(anyLong());
+        verify(productSnapshotService, never()).removeProduct(anyLong());
+    }
+
+    @Test
+    void saveOutsideATransactionDispatchesOnce() {
+        Product product = productRepository.save(newProduct("Single"));
+
+        verify(productRedisService, timeout(DISPATCH_TIMEOUT_MS).times(1))
+                .evictProducts(eq(Set.of(product.getId())), eq(Set.of(category.getId())));
+        verify(productFacetService, timeout(DISPATCH_TIMEOUT_MS).times(1)).adjustCounts(any());
+        verify(productSearchService, times(1)).indexProduct(any(Product.class));
+        verify(productFuzzySearchService, times(1)).upsertProduct(any(Product.class));
+    }
+
+    private Product newProduct(String name) {
+        return Product.builder().name(name).price(100f).category(category).build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.shopapp.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopapp.models.Category;
+import com.shopapp.models.Product;
+import com.shopapp.models.ProductImage;
+import com.shopapp.responses.ProductResponse;
+import com.shopapp.services.interfaces.IProductFuzzySearchService;
+import com.shopapp.services.interfaces.IProductInvalidationService;
+import com.shopapp.services.interfaces.IProductSearchService;
+import com.shopapp.services.interfaces.IProductSnapshotService;
+import com.shopapp.services.interfaces.IProductSuggestService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Building a page of ProductResponse must cost a fixed number of statements, whatever the page size
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductRepositoryTests {
+
+    private static final int PRODUCT_COUNT = 30;
+    private static final int IMAGES_PER_PRODUCT = 2;
+
+    @MockBean
+    private IProductInvalidationService productInvalidationService;
+
+    @MockBean
+    private IProductSearchService productSearchService;
+
+    @MockBean
+    private IProductSnapshotService productSnapshotService;
+
+    @MockBean
+    private IProductSuggestService productSuggestService;
+
+    @MockBean
+    private IProductFuzzySearchService productFuzzySearchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Category category = entityManager.persist(Category.builder().name("Laptop").build());
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = entityManager.persist(Product.builder()
+                    .name("Product " + i)
+                    .price(100f + i)
+                    .description("Description " + i)
+                    .category(category)
+                    .build());
+            for (int j = 0; j < IMAGES_PER_PRODUCT; j++) {
+                entityManager.persist(ProductImage.builder()
+                        .product(product)
+                        .imageUrl("image-" + i + "-" + j + ".png")
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void searchProductsPageUsesConstantStatements() throws Exception {
+        List<ProductResponse> responses = productRepository
+                .searchProducts(0L, "", null, null, PageRequest.of(0, 20, Sort.by("id").ascending()))
+                .map(ProductResponse::fromProduct)
+                .getContent();
+
+        assertEquals(20, responses.size());
+        assertEquals(IMAGES_PER_PRODUCT, responses.get(0).getProductImages().size());
+        objectMapper.writeValueAsBytes(responses);
+        // page + count + one batched select for the images of the whole page
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+                "statements per page: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void keysetPageUsesConstantStatements() throws Exception {
+        List<ProductResponse> responses = productRepository
+                .searchProductsAfter(0L, 0L, "", null, null, Limit.of(PRODUCT_COUNT))
+                .stream()
+                .map(ProductResponse::fromProduct)
+                .toList();
+
+        assertEquals(PRODUCT_COUNT, responses.size());
+        objectMapper.writeValueAsBytes(responses);
+        // page + one batched select for the images
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "statements per page: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findProductsByIdsUsesConstantStatements() throws Exception {
+        List<Long> ids = productRepository.findAll().stream().map(Product::getId).limit(10).toList();
+        statistics.clear();
+
+        List<ProductResponse> responses = productRepository.findProductsByIds(ids)
+                .stream()
+                .map(ProductResponse::fromProduct)
+                .toList();
+
+        assertEquals(ids.size(), responses.size());
+        objectMapper.writeValueAsBytes(responses);
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "statements per page: " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,198 @@
+package com.shopapp.services;
+
+import com.shopapp.exceptions.InvalidParamException;
+import com.shopapp.models.Category;
+import com.shopapp.repositories.CategoryRepository;
+import com.shopapp.responses.ProductImportResponse;
+import com.shopapp.services.impl.ProductImportService;
+import com.shopapp.services.interfaces.IProductFacetService;
+import com.shopapp.services.interfaces.IProductFuzzySearchService;
+import com.shopapp.services.interfaces.IProductInvalidationService;
+import com.shopapp.services.interfaces.IProductRedisService;
+import com.shopapp.services.interfaces.IProductSearchService;
+import com.shopapp.services.interfaces.IProductSnapshotService;
+import com.shopapp.services.interfaces.IProductSuggestService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Rows are parsed, validated and inserted against H2; every rejected row is reported with its own line and cause
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "product-import.batch-size=3"
+})
+@Import(ProductImportService.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+// Each batch commits on its own, which a test-managed transaction would hide
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductImportServiceTests {
+
+    private static final String CSV_HEADER = "name,price,category_id,description,thumbnail\n";
+
+    @MockBean
+    private IProductRedisService productRedisService;
+
+    @MockBean
+    private IProductFacetService productFacetService;
+
+    @MockBean
+    private IProductInvalidationService productInvalidationService;
+
+    @MockBean
+    private IProductSearchService productSearchService;
+
+    @MockBean
+    private IProductSnapshotService productSnapshotService;
+
+    @MockBean
+    private IProductSuggestService productSuggestService;
+
+    @MockBean
+    private IProductFuzzySearchService productFuzzySearchService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        // The import leaves the id to the column default, which shopapp.sql sets to products_seq
+        jdbcTemplate.execute("ALTER TABLE products ALTER COLUMN id SET DEFAULT NEXT VALUE FOR products_seq");
+        category = categoryRepository.save(Category.builder().name("Laptop").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM products");
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void quotedCsvFieldsKeepTheirCommasAndQuotes() throws Exception {
+        ProductImportResponse response = importCsv(CSV_HEADER
+                + "\"Laptop, 15\"\" screen\",1200," + category.getId() + ",\"Fast, light\",\n");
+
+        assertEquals(1, response.getImported());
+        assertEquals(0, response.getFailed());
+        assertEquals(List.of(Map.of("NAME", "Laptop, 15\" screen", "DESCRIPTION", "Fast, light")),
+                jdbcTemplate.queryForList("SELECT name, description FROM products"));
+    }
+
+    @Test
+    void csvColumnsAreFoundByHeaderInAnyOrder() throws Exception {
+        ProductImportResponse response = importCsv("Category_ID, Price ,NAME\n"
+                + category.getId() + ",15,Reordered columns\n");
+
+        assertEquals(1, response.getImported());
+        assertEquals(List.of("Reordered columns"),
+                jdbcTemplate.queryForList("SELECT name FROM products", String.class));
+    }
+
+    @Test
+    void csvWithoutTheRequiredHeaderIsRejected() {
+        InvalidParamException missingColumn = assertThrows(InvalidParamException.class,
+                () -> importCsv("name,price\nPhone,10\n"));
+        assertEquals("CSV header must contain category_id", missingColumn.getMessage());
+
+        InvalidParamException missingHeader = assertThrows(InvalidParamException.class, () -> importCsv(""));
+        assertTrue(missingHeader.getMessage().startsWith("CSV header is required"));
+    }
+
+    @Test
+    void invalidRowsAreReportedWithTheirLine() throws Exception {
+        long categoryId = category.getId();
+        ProductImportResponse response = importCsv(CSV_HEADER
+                + "Valid product,10," + categoryId + ",,\n"  // line 2
+                + "ab,10," + categoryId + ",,\n"             // line 3: name too short
+                + "No price,," + categoryId + ",,\n"         // line 4
+                + "Unknown category,10,999999,,\n"           // line 5
+                + "Valid product,20," + categoryId + ",,\n"  // line 6: duplicate in the file
+                + "Bad price,ten," + categoryId + ",,\n"     // line 7
+                + "\n"                                       // line 8: blank lines are skipped
+                + "\"Unterminated,10," + categoryId + "\n"); // line 9
+
+        assertEquals(1, response.getImported());
+        assertEquals(6, response.getFailed());
+        Map<Long, String> errors = getErrors(response);
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 9L), List.copyOf(errors.keySet()));
+        assertEquals("Name must be between 3 and 200 characters", errors.get(3L));
+        assertEquals("Price is required", errors.get(4L));
+        assertEquals("Cannot find category with id: 999999", errors.get(5L));
+        assertEquals("Duplicate product name in import: Valid product", errors.get(6L));
+        assertTrue(errors.get(7L).startsWith("Invalid number"));
+        assertEquals("Unterminated quoted field", errors.get(9L));
+    }
+
+    @Test
+    void invalidJsonLinesAreReportedWithTheirLine() throws Exception {
+        ProductImportResponse response = importJson(
+                "{\"name\":\"Json product\",\"price\":10,\"category_id\":" + category.getId() + "}\n"
+                        + "{\"name\":\"Broken\",\n");
+
+        assertEquals(1, response.getImported());
+        assertEquals(1, response.getFailed());
+        assertTrue(getErrors(response).get(2L).startsWith("Invalid JSON"));
+    }
+
+    @Test
+    void rowRejectedByTheDatabaseDoesNotFailItsWholeBatch() throws Exception {
+        long categoryId = category.getId();
+        // Passes validation but not the 300-character thumbnail column, in the middle of a batch of 3
+        ProductImportResponse response = importCsv(CSV_HEADER
+                + "First product,10," + categoryId + ",,\n"
+                + "Second product,10," + categoryId + ",," + "x".repeat(400) + "\n"
+                + "Third product,10," + categoryId + ",,\n");
+
+        assertEquals(2, response.getImported());
+        assertEquals(1, response.getFailed());
+        assertEquals(List.of(3L), List.copyOf(getErrors(response).keySet()));
+        assertEquals(List.of("First product", "Third product"),
+                jdbcTemplate.queryForList("SELECT name FROM products ORDER BY name", String.class));
+    }
+
+    private ProductImportResponse importCsv(String body) throws IOException, InvalidParamException {
+        return productImportService.importProducts(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), true);
+    }
+
+    private ProductImportResponse importJson(String body) throws IOException, InvalidParamException {
+        return productImportService.importProducts(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), false);
+    }
+
+    private Map<Long, String> getErrors(ProductImportResponse response) {
+        return response.getErrors().stream().collect(Collectors.toMap(
+                ProductImportResponse.RowError::getLine, ProductImportResponse.RowError::getMessage,
+                (first, second) -> first, LinkedHashMap::new));
+    }
+}
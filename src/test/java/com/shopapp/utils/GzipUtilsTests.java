@@ -0,0 +1,40 @@
+package com.shopapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GzipUtilsTests {
+
+    @Test
+    void gzipIsAcceptedByNameOrWildcard() {
+        assertTrue(GzipUtils.acceptsGzip("gzip"));
+        assertTrue(GzipUtils.acceptsGzip("deflate, GZIP;q=0.5, br"));
+        assertTrue(GzipUtils.acceptsGzip("x-gzip"));
+        assertTrue(GzipUtils.acceptsGzip("br, *;q=0.1"));
+    }
+
+    @Test
+    void zeroQualityRefusesGzip() {
+        assertFalse(GzipUtils.acceptsGzip(null));
+        assertFalse(GzipUtils.acceptsGzip("identity"));
+        assertFalse(GzipUtils.acceptsGzip("gzip;q=0"));
+        assertFalse(GzipUtils.acceptsGzip("gzip; q=0.000, deflate"));
+        // An explicit gzip entry wins over the wildcard
+        assertFalse(GzipUtils.acceptsGzip("*, gzip;q=0"));
+        assertFalse(GzipUtils.acceptsGzip("*;q=0"));
+        assertFalse(GzipUtils.acceptsGzip("gzip;q=abc"));
+    }
+
+    @Test
+    void gunzipRestoresTheBytes() {
+        byte[] bytes = "{\"products\":[]}".getBytes();
+        byte[] gzipped = GzipUtils.gzip(bytes);
+
+        assertTrue(GzipUtils.isGzipped(gzipped));
+        assertFalse(GzipUtils.isGzipped(bytes));
+        assertArrayEquals(bytes, GzipUtils.gunzip(gzipped));
+    }
+}